@@ -0,0 +1,83 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.BankingSystemApplication;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.User;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against a private in-memory H2 database for a benchmark
+ * trial and seeds the accounts the benchmarks post against.
+ */
+final class BenchmarkContext {
+
+    static final String ADMIN_USERNAME = "sysadmin";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name, String... extraArguments) {
+        // Passed as arguments so they take precedence over application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.banking_system=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--banking.virtual-threads.pinning-monitor.enabled=false",
+                "--banking.partitioning.enabled=false",
+                // A benchmark driving the HTTP API from one client would be throttled within its first iteration
+                "--banking.rate-limit.enabled=false"));
+        arguments.addAll(List.of(extraArguments));
+        return new SpringApplicationBuilder(BankingSystemApplication.class).run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Creates accounts owned by the seeded administrator, each funded well beyond
+     * what a benchmark run can withdraw. Returns their account numbers.
+     */
+    static List<String> seedAccounts(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        User owner = userRepository.findByUsername(ADMIN_USERNAME)
+                .orElseThrow(() -> new IllegalStateException("Seeded administrator not found"));
+
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Account account = new Account();
+            account.setAccountNumber(String.format("ACC%010d", i));
+            account.setAccountType(Account.AccountType.CHECKING);
+            account.setBalance(new BigDecimal("1000000000000.00"));
+            account.setUser(owner);
+            accounts.add(account);
+        }
+        return accountRepository.saveAll(accounts).stream()
+                .map(Account::getAccountNumber)
+                .toList();
+    }
+
+    /**
+     * Authenticates the calling benchmark thread as the administrator, which may
+     * post against any account.
+     */
+    static void authenticateAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                ADMIN_USERNAME, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+}
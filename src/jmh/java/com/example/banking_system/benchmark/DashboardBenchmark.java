@@ -0,0 +1,77 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.dto.DashboardStatsDTO;
+import com.example.banking_system.service.DashboardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin dashboard statistics over a seeded history of transactions spread
+ * across the last 60 days.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardBenchmark {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAW", "TRANSFER"};
+
+    @Param({"10000", "100000"})
+    private int transactions;
+
+    private ConfigurableApplicationContext context;
+    private DashboardService dashboardService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("dashboard");
+        dashboardService = context.getBean(DashboardService.class);
+        BenchmarkContext.seedAccounts(context, 100);
+        seedTransactions(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public DashboardStatsDTO adminStats() {
+        return dashboardService.getAdminStats();
+    }
+
+    private void seedTransactions(JdbcTemplate jdbcTemplate) {
+        List<Long> accountIds = jdbcTemplate.queryForList("SELECT id FROM accounts", Long.class);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> batch = new ArrayList<>(1000);
+        for (int i = 0; i < transactions; i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            Long source = type.equals("DEPOSIT") ? null : accountIds.get(random.nextInt(accountIds.size()));
+            Long target = type.equals("WITHDRAW") ? null : accountIds.get(random.nextInt(accountIds.size()));
+            batch.add(new Object[]{
+                    BigDecimal.valueOf(1 + random.nextInt(100_000), 2), type, source, target, type,
+                    String.format("BENCH%014d", i),
+                    Timestamp.valueOf(now.minusSeconds(random.nextInt(60 * 24 * 3600))),
+                    "COMPLETED"});
+            if (batch.size() == 1000 || i == transactions - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO transactions (amount, type, source_account_id, target_account_id, " +
+                        "description, reference_number, timestamp, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
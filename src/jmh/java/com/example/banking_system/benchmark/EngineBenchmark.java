@@ -0,0 +1,98 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.engine.PostingEngine;
+import com.example.banking_system.engine.PostingReceipt;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.repository.AccountRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Transfers straight into the posting engine, without HTTP, security or the
+ * account lookups of TransactionService: ring buffer hand-off, funds check,
+ * journal append and the batched journal force.
+ *
+ * transfer waits for every receipt, as a request thread does. pipelined
+ * publishes a window of transfers and waits for the last, which is how the
+ * writer reaches its throughput. Sustained throughput is bounded by the slower
+ * of the writer and its replication into H2, because a lagging replicator
+ * fills the ring and blocks producers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final int WINDOW = 1000;
+
+    @Param({"1000"})
+    private int accounts;
+
+    // Without fsync the journal only reaches the page cache, which survives a process crash but not power loss
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private Path journalDirectory;
+    private ConfigurableApplicationContext context;
+    private PostingEngine postingEngine;
+    private List<Account> seeded;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        journalDirectory = Files.createTempDirectory("engine-benchmark");
+        context = BenchmarkContext.start("engine",
+                "--banking.engine.enabled=true",
+                "--banking.engine.journal.directory=" + journalDirectory,
+                "--banking.engine.journal.fsync=" + fsync,
+                "--banking.engine.replication-batch-size=10000",
+                "--banking.engine.wait-strategy=blocking");
+        BenchmarkContext.seedAccounts(context, accounts);
+        postingEngine = context.getBean(PostingEngine.class);
+        seeded = context.getBean(AccountRepository.class).findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(journalDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public PostingReceipt transfer() {
+        int source = ThreadLocalRandom.current().nextInt(seeded.size());
+        int target = (source + 1 + ThreadLocalRandom.current().nextInt(seeded.size() - 1)) % seeded.size();
+        return postingEngine.transfer(seeded.get(source), seeded.get(target), AMOUNT, "Benchmark");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public PostingReceipt pipelined() {
+        CompletableFuture<PostingReceipt> last = null;
+        for (int i = 0; i < WINDOW; i++) {
+            int source = ThreadLocalRandom.current().nextInt(seeded.size());
+            int target = (source + 1 + ThreadLocalRandom.current().nextInt(seeded.size() - 1)) % seeded.size();
+            last = postingEngine.transferAsync(seeded.get(source), seeded.get(target), AMOUNT, "Benchmark");
+        }
+        return last.join();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.service.InterestAccrualService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full interest accrual run over the seeded savings accounts against H2.
+ * Every invocation accrues the next day, so all accounts are credited each
+ * time; the score is the run's duration, and accounts divided by it is the
+ * throughput to scale to the nightly account count.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestAccrualBenchmark {
+
+    private static final String INSERT_ACCOUNT = "INSERT INTO accounts (account_number, balance, account_type, " +
+            "user_id, created_at, updated_at, is_active, hot_account) VALUES (?, ?, 'SAVINGS', ?, ?, ?, TRUE, FALSE)";
+
+    @Param({"200000"})
+    private int accounts;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ConfigurableApplicationContext context;
+    private InterestAccrualService interestAccrualService;
+    private LocalDate nextDate = LocalDate.of(2025, 1, 1);
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("interest",
+                "--banking.interest.enabled=false",
+                "--banking.interest.threads=" + threads);
+        // Seeded with plain JDBC batches: saving this many entities would dominate the trial
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long ownerId = context.getBean(UserRepository.class).findByUsername(BenchmarkContext.ADMIN_USERNAME)
+                .orElseThrow(() -> new IllegalStateException("Seeded administrator not found"))
+                .getId();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            rows.add(new Object[]{String.format("SAV%010d", i), BigDecimal.valueOf(10_000 + i % 90_000, 0), ownerId, now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT, rows);
+        interestAccrualService = context.getBean(InterestAccrualService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public InterestAccrualService.AccrualSummary accrue() {
+        InterestAccrualService.AccrualSummary summary = interestAccrualService.accrue(nextDate);
+        nextDate = nextDate.plusDays(1);
+        return summary;
+    }
+}
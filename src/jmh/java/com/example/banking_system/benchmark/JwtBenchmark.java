@@ -0,0 +1,49 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and the per-request validation done by JwtRequestFilter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000L);
+        userDetails = User.withUsername("benchmark").password("unused").roles("CUSTOMER").build();
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtUtil.isTokenValid(token, userDetails);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+}
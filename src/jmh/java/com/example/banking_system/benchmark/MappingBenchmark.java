@@ -0,0 +1,80 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.dto.AccountResponse;
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping and number generation on in-memory objects, without
+ * any persistence in the way.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private Account account;
+    private Transaction transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+
+        account = new Account();
+        account.setId(1L);
+        account.setAccountNumber("ACC0000000001");
+        account.setBalance(new BigDecimal("1250.75"));
+        account.setAccountType(Account.AccountType.CHECKING);
+        account.setCreatedAt(LocalDateTime.now());
+        account.setUser(user);
+
+        Account target = new Account();
+        target.setId(2L);
+        target.setAccountNumber("ACC0000000002");
+        target.setUser(user);
+
+        transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setAmount(new BigDecimal("42.00"));
+        transaction.setType(Transaction.TransactionType.TRANSFER);
+        transaction.setSourceAccount(account);
+        transaction.setTargetAccount(target);
+        transaction.setDescription("Transfer");
+        transaction.setReferenceNumber(Transaction.newReferenceNumber());
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+    }
+
+    @Benchmark
+    public TransactionResponse transactionResponse() {
+        return new TransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public AccountResponse accountResponse() {
+        return new AccountResponse(account);
+    }
+
+    @Benchmark
+    public String referenceNumber() {
+        return Transaction.newReferenceNumber();
+    }
+
+    @Benchmark
+    public String accountNumber() {
+        return Account.newAccountNumber();
+    }
+}
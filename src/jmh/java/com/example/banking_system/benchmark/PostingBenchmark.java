@@ -0,0 +1,90 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.dto.DepositRequest;
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.dto.TransferRequest;
+import com.example.banking_system.dto.WithdrawRequest;
+import com.example.banking_system.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end posting through TransactionService against H2: one database
+ * transaction per operation, including the account lookups, balance update,
+ * transaction insert and event publication.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostingBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    // Fewer accounts means more threads posting to the same rows
+    @Param({"1000"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private List<String> accountNumbers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("posting");
+        transactionService = context.getBean(TransactionService.class);
+        accountNumbers = BenchmarkContext.seedAccounts(context, accounts);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        @Setup(Level.Trial)
+        public void authenticate() {
+            BenchmarkContext.authenticateAsAdmin();
+        }
+    }
+
+    @Benchmark
+    public TransactionResponse deposit(Caller caller) {
+        DepositRequest request = new DepositRequest();
+        request.setAccountNumber(randomAccount());
+        request.setAmount(AMOUNT);
+        return transactionService.deposit(request);
+    }
+
+    @Benchmark
+    public TransactionResponse withdraw(Caller caller) {
+        WithdrawRequest request = new WithdrawRequest();
+        request.setAccountNumber(randomAccount());
+        request.setAmount(AMOUNT);
+        return transactionService.withdraw(request);
+    }
+
+    @Benchmark
+    public TransactionResponse transfer(Caller caller) {
+        int source = ThreadLocalRandom.current().nextInt(accountNumbers.size());
+        int target = (source + 1 + ThreadLocalRandom.current().nextInt(accountNumbers.size() - 1)) % accountNumbers.size();
+        TransferRequest request = new TransferRequest();
+        request.setSourceAccountNumber(accountNumbers.get(source));
+        request.setTargetAccountNumber(accountNumbers.get(target));
+        request.setAmount(AMOUNT);
+        return transactionService.transfer(request);
+    }
+
+    private String randomAccount() {
+        return accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+    }
+}
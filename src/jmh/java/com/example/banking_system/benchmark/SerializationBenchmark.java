@@ -0,0 +1,99 @@
+package com.example.banking_system.benchmark;
+
+import com.example.banking_system.dto.AccountResponse;
+import com.example.banking_system.dto.DashboardStatsDTO;
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response encoding cost per format: a page of transactions as returned by
+ * /api/admin/transactions, a page of accounts and the dashboard statistics.
+ * The encoded size of each is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<TransactionResponse> transactions;
+    private List<AccountResponse> accounts;
+    private DashboardStatsDTO dashboard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        // The application's mappers are built the same way, with Boot's default of ISO date strings
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        mapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        LocalDateTime now = LocalDateTime.now();
+        transactions = new ArrayList<>(PAGE_SIZE);
+        accounts = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            transactions.add(new TransactionResponse((long) i + 1, new BigDecimal("42.00").add(BigDecimal.valueOf(i, 2)),
+                    Transaction.TransactionType.TRANSFER, String.format("ACC%010d", i), String.format("ACC%010d", i + 1),
+                    "Transfer", Transaction.newReferenceNumber(), now.minusSeconds(i),
+                    Transaction.TransactionStatus.COMPLETED));
+            accounts.add(new AccountResponse((long) i + 1, String.format("ACC%010d", i),
+                    new BigDecimal("1250.75").add(BigDecimal.valueOf(i)), Account.AccountType.CHECKING, true, now,
+                    "benchmark" + i, (long) i + 1, "benchmark" + i, "benchmark" + i + "@example.com"));
+        }
+
+        dashboard = new DashboardStatsDTO();
+        dashboard.setTotalUsers(120_000);
+        dashboard.setTotalAccounts(250_000);
+        dashboard.setTotalBalance(new BigDecimal("98765432.10"));
+        dashboard.setRecentTransactions(1_500_000);
+        dashboard.setTotalDeposits(new BigDecimal("12345678.90"));
+        dashboard.setTotalWithdrawals(new BigDecimal("2345678.90"));
+        dashboard.setTotalTransfers(new BigDecimal("3456789.01"));
+        dashboard.setAverageBalance(new BigDecimal("395.06"));
+        dashboard.setLargestTransaction(new BigDecimal("50000.00"));
+        dashboard.setAdditionalData(Map.of("role", "ADMIN"));
+
+        int transactionBytes = mapper.writeValueAsBytes(transactions).length;
+        int accountBytes = mapper.writeValueAsBytes(accounts).length;
+        System.out.printf("%n%s: %d bytes per transaction row, %d per account row, %d for the dashboard%n", format,
+                transactionBytes / PAGE_SIZE, accountBytes / PAGE_SIZE, mapper.writeValueAsBytes(dashboard).length);
+    }
+
+    @Benchmark
+    public byte[] transactionPage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] accountPage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(accounts);
+    }
+
+    @Benchmark
+    public byte[] dashboard() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(dashboard);
+    }
+}
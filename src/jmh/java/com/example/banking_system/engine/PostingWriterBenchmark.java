@@ -0,0 +1,98 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The posting engine's core on its own: ring buffer, funds check, balance
+ * updates and journal append, with no Spring context and no replication
+ * behind the writer. This is the ceiling the engine reaches when the database
+ * keeps up; EngineBenchmark measures it with replication into H2.
+ *
+ * Lives in the engine package because the writer and its journal are
+ * package-private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostingWriterBenchmark {
+
+    private static final int WINDOW = 1000;
+
+    @Param({"1000"})
+    private int accounts;
+
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private Path journalDirectory;
+    private PostingJournal journal;
+    private Disruptor<PostingCommand> disruptor;
+    private RingBuffer<PostingCommand> ringBuffer;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        journalDirectory = Files.createTempDirectory("writer-benchmark");
+        BalanceMap balances = new BalanceMap(accounts);
+        for (long id = 1; id <= accounts; id++) {
+            balances.put(id, Long.MAX_VALUE / 2);
+        }
+        journal = new PostingJournal(journalDirectory, 256 * 1024 * 1024, fsync);
+        long lastSequence = journal.recover(0, record -> { });
+        disruptor = new Disruptor<>(PostingCommand::new, 65536,
+                Thread.ofPlatform().name("posting-writer-benchmark").daemon(true).factory(),
+                ProducerType.SINGLE, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(new PostingWriter(balances, journal, lastSequence));
+        ringBuffer = disruptor.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        disruptor.shutdown();
+        journal.close();
+        try (Stream<Path> files = Files.walk(journalDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public PostingReceipt pipelined() {
+        CompletableFuture<PostingReceipt> last = null;
+        for (int i = 0; i < WINDOW; i++) {
+            long source = 1 + ThreadLocalRandom.current().nextInt(accounts);
+            long target = 1 + (source + ThreadLocalRandom.current().nextInt(accounts - 1)) % accounts;
+            CompletableFuture<PostingReceipt> result = new CompletableFuture<>();
+            ringBuffer.publishEvent((command, ringSequence) -> {
+                command.reset();
+                command.kind = PostingCommand.Kind.POSTING;
+                command.type = Transaction.TransactionType.TRANSFER;
+                command.sourceAccountId = source;
+                command.targetAccountId = target;
+                command.amountCents = 100;
+                command.description = "Benchmark";
+                command.result = result;
+            });
+            last = result;
+        }
+        return last.join();
+    }
+}
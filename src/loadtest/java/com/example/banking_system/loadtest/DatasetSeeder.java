@@ -0,0 +1,123 @@
+package com.example.banking_system.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Bulk-loads customers, their accounts and a transaction history with batched
+ * JDBC inserts, bypassing JPA. The same seed always produces the same dataset.
+ */
+class DatasetSeeder {
+
+    static final String PASSWORD = "LoadTest123!";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAW", "TRANSFER"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    DatasetSeeder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    Dataset seed(LoadTestConfig config) {
+        Random random = new Random(config.seed());
+        LocalDateTime now = LocalDateTime.now();
+        // Seeded history goes back 90 days and history queries start at the account's creation
+        Timestamp created = Timestamp.valueOf(now.minusDays(91));
+
+        // BCrypt is deliberately slow; every seeded customer shares one hash
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<Object[]> users = new ArrayList<>(config.users());
+        for (int i = 0; i < config.users(); i++) {
+            String username = username(i);
+            users.add(new Object[]{username, passwordHash, username + "@loadtest.local", "Load", "Test " + i,
+                    true, created, created});
+        }
+        insert("INSERT INTO users (username, password, email, first_name, last_name, is_enabled, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", users);
+
+        Map<String, Long> userIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username LIKE 'load%'",
+                rs -> {
+                    userIds.put(rs.getString("username"), rs.getLong("id"));
+                });
+        Long customerRoleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'CUSTOMER'", Long.class);
+
+        List<Object[]> roles = new ArrayList<>(config.users());
+        List<Object[]> accounts = new ArrayList<>(config.users() * config.accountsPerUser());
+        List<Dataset.Customer> customers = new ArrayList<>(config.users());
+        List<String> accountNumbers = new ArrayList<>(config.users() * config.accountsPerUser());
+        for (int i = 0; i < config.users(); i++) {
+            Long userId = userIds.get(username(i));
+            roles.add(new Object[]{userId, customerRoleId});
+            List<String> owned = new ArrayList<>(config.accountsPerUser());
+            for (int a = 0; a < config.accountsPerUser(); a++) {
+                String accountNumber = String.format("ACC%010d", i * config.accountsPerUser() + a);
+                accounts.add(new Object[]{accountNumber, new BigDecimal("1000000000.00"), "CHECKING", userId,
+                        created, created, true});
+                owned.add(accountNumber);
+            }
+            customers.add(new Dataset.Customer(username(i), owned));
+            accountNumbers.addAll(owned);
+        }
+        insert("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", roles);
+        insert("INSERT INTO accounts (account_number, balance, account_type, user_id, created_at, updated_at, is_active) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", accounts);
+
+        List<Long> accountIds = jdbcTemplate.queryForList("SELECT id FROM accounts ORDER BY id", Long.class);
+        List<Object[]> transactions = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < config.transactions(); i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            Long source = type.equals("DEPOSIT") ? null : accountIds.get(random.nextInt(accountIds.size()));
+            Long target = type.equals("WITHDRAW") ? null : accountIds.get(random.nextInt(accountIds.size()));
+            transactions.add(new Object[]{BigDecimal.valueOf(1 + random.nextInt(100_000), 2), type, source, target,
+                    type, String.format("LOAD%015d", i), Timestamp.valueOf(now.minusSeconds(random.nextInt(90 * 24 * 3600))),
+                    "COMPLETED"});
+            if (transactions.size() == BATCH_SIZE) {
+                insertTransactions(transactions);
+                transactions.clear();
+            }
+        }
+        insertTransactions(transactions);
+
+        return new Dataset(customers, accountNumbers);
+    }
+
+    private void insertTransactions(List<Object[]> rows) {
+        insert("INSERT INTO transactions (amount, type, source_account_id, target_account_id, description, " +
+                "reference_number, timestamp, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        }
+    }
+
+    private static String username(int index) {
+        return String.format("load%06d", index);
+    }
+
+    record Dataset(List<Customer> customers, List<String> accountNumbers) {
+
+        record Customer(String username, List<String> accountNumbers) {
+        }
+    }
+}
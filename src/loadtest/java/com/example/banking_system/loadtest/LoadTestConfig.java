@@ -0,0 +1,56 @@
+package com.example.banking_system.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from loadtest.* system properties.
+ */
+record LoadTestConfig(int users,
+                      int accountsPerUser,
+                      int transactions,
+                      int clients,
+                      int warmupSeconds,
+                      int durationSeconds,
+                      Map<Operation, Integer> mix,
+                      long seed,
+                      Path output) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 1000),
+                Integer.getInteger("loadtest.accounts-per-user", 2),
+                Integer.getInteger("loadtest.transactions", 100_000),
+                Integer.getInteger("loadtest.clients", 100),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 30),
+                parseMix(System.getProperty("loadtest.mix",
+                        "login=5,deposit=20,withdraw=15,transfer=20,history=30,dashboard=10")),
+                Long.getLong("loadtest.seed", 42L),
+                Paths.get(System.getProperty("loadtest.output", "target/loadtest")));
+    }
+
+    /**
+     * Parses "deposit=20,transfer=10,..." into relative weights. Operations not
+     * listed are not run.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no operations");
+        }
+        return weights;
+    }
+}
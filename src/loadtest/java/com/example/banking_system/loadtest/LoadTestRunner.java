@@ -0,0 +1,284 @@
+package com.example.banking_system.loadtest;
+
+import com.example.banking_system.BankingSystemApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts the application on a private in-memory H2 database, seeds a dataset
+ * and drives a weighted mix of API calls from closed-loop virtual-thread
+ * clients. Each client logs in as one seeded customer and only posts against
+ * that customer's accounts.
+ *
+ * Latency is recorded per operation in HdrHistogram and reported as
+ * percentiles, a .hgrm distribution per operation and one .hlog file, all under
+ * loadtest.output. Only calls started after the warm-up are recorded.
+ *
+ * The rate limiter is switched off: every client logs in from the same
+ * address, so the per-IP login limit would otherwise throttle the run after
+ * its first few logins. Any 429 that still comes back is counted on its own
+ * rather than as an error.
+ */
+public class LoadTestRunner {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestConfig config;
+    private final URI baseUri;
+    private final DatasetSeeder.Dataset dataset;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> throttled = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+
+    LoadTestRunner(LoadTestConfig config, URI baseUri, DatasetSeeder.Dataset dataset, HttpClient httpClient) {
+        this.config = config;
+        this.baseUri = baseUri;
+        this.dataset = dataset;
+        this.httpClient = httpClient;
+
+        List<Operation> weighted = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new AtomicLong());
+            throttled.put(operation, new AtomicLong());
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.weightedOperations = weighted.toArray(Operation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ConfigurableApplicationContext context = start();
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long seedStart = System.nanoTime();
+            DatasetSeeder.Dataset dataset = new DatasetSeeder(
+                    context.getBean(JdbcTemplate.class),
+                    context.getBean(PlatformTransactionManager.class),
+                    context.getBean(PasswordEncoder.class)).seed(config);
+            System.out.printf("Seeded %d users, %d accounts and %d transactions in %d ms%n",
+                    config.users(), dataset.accountNumbers().size(), config.transactions(),
+                    (System.nanoTime() - seedStart) / 1_000_000);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientExecutor)
+                    .build();
+            new LoadTestRunner(config, URI.create("http://localhost:" + port), dataset, httpClient).run();
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        // Passed as arguments so they take precedence over application.properties
+        return new SpringApplicationBuilder(BankingSystemApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.banking_system=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--banking.virtual-threads.pinning-monitor.enabled=false",
+                "--banking.partitioning.enabled=false",
+                "--banking.rate-limit.enabled=false");
+    }
+
+    void run() throws InterruptedException, IOException {
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(config.warmupSeconds()).toNanos();
+        long stopAt = measureFrom + Duration.ofSeconds(config.durationSeconds()).toNanos();
+        System.out.printf("Running %d clients: %d s warm-up, %d s measured%n",
+                config.clients(), config.warmupSeconds(), config.durationSeconds());
+
+        List<Thread> clients = new ArrayList<>(config.clients());
+        for (int i = 0; i < config.clients(); i++) {
+            DatasetSeeder.Dataset.Customer customer = dataset.customers().get(i % dataset.customers().size());
+            SplittableRandom random = new SplittableRandom(config.seed() + i);
+            clients.add(Thread.ofVirtual().name("loadtest-client-", i)
+                    .start(() -> runClient(customer, random, measureFrom, stopAt)));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        report(Duration.ofSeconds(config.durationSeconds()));
+    }
+
+    private void runClient(DatasetSeeder.Dataset.Customer customer, SplittableRandom random,
+                           long measureFrom, long stopAt) {
+        String token;
+        try {
+            token = token(login(customer));
+        } catch (IOException e) {
+            token = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        while (true) {
+            Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+            long start = System.nanoTime();
+            if (start >= stopAt) {
+                return;
+            }
+            int status;
+            try {
+                if (operation == Operation.LOGIN) {
+                    HttpResponse<String> response = login(customer);
+                    status = response.statusCode();
+                    String renewed = token(response);
+                    token = renewed != null ? renewed : token;
+                } else {
+                    status = send(request(operation, customer, random), token);
+                }
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (start >= measureFrom) {
+                recorders.get(operation).recordValue(System.nanoTime() - start);
+                if (status == 429) {
+                    throttled.get(operation).incrementAndGet();
+                } else if (status / 100 != 2) {
+                    errors.get(operation).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(Operation operation, DatasetSeeder.Dataset.Customer customer,
+                                        SplittableRandom random) {
+        String ownAccount = customer.accountNumbers().get(random.nextInt(customer.accountNumbers().size()));
+        return switch (operation) {
+            case DEPOSIT -> post("/api/transactions/deposit",
+                    "{\"accountNumber\":\"" + ownAccount + "\",\"amount\":1.00}");
+            case WITHDRAW -> post("/api/transactions/withdraw",
+                    "{\"accountNumber\":\"" + ownAccount + "\",\"amount\":1.00}");
+            case TRANSFER -> {
+                String target;
+                do {
+                    target = dataset.accountNumbers().get(random.nextInt(dataset.accountNumbers().size()));
+                } while (target.equals(ownAccount));
+                yield post("/api/transactions/transfer", "{\"sourceAccountNumber\":\"" + ownAccount
+                        + "\",\"targetAccountNumber\":\"" + target + "\",\"amount\":1.00}");
+            }
+            case HISTORY -> HttpRequest.newBuilder(baseUri.resolve("/api/transactions/my-transactions?page=0&size=20")).GET();
+            case DASHBOARD -> HttpRequest.newBuilder(baseUri.resolve("/api/dashboard/customer-stats")).GET();
+            case LOGIN -> throw new IllegalArgumentException("Login is issued through login()");
+        };
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private int send(HttpRequest.Builder request, String token) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request
+                .header("Authorization", "Bearer " + token)
+                .timeout(REQUEST_TIMEOUT)
+                .build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    private HttpResponse<String> login(DatasetSeeder.Dataset.Customer customer)
+            throws IOException, InterruptedException {
+        return httpClient.send(post("/api/auth/login",
+                "{\"username\":\"" + customer.username() + "\",\"password\":\"" + DatasetSeeder.PASSWORD + "\"}")
+                .timeout(REQUEST_TIMEOUT)
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String token(HttpResponse<String> loginResponse) throws IOException {
+        if (loginResponse.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(loginResponse.body()).path("token").asText(null);
+    }
+
+    private void report(Duration measured) throws IOException {
+        Files.createDirectories(config.output());
+        long endTimestamp = System.currentTimeMillis();
+        long startTimestamp = endTimestamp - measured.toMillis();
+
+        StringBuilder summary = new StringBuilder(String.format("%-40s %9s %7s %7s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "429s", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        try (PrintStream log = new PrintStream(Files.newOutputStream(config.output().resolve("loadtest.hlog")))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(log);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startTimestamp);
+            logWriter.outputLegend();
+
+            for (Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+                Operation operation = entry.getKey();
+                Histogram histogram = entry.getValue().getIntervalHistogram();
+                histogram.setStartTimeStamp(startTimestamp);
+                histogram.setEndTimeStamp(endTimestamp);
+                histogram.setTag(operation.key());
+                logWriter.outputIntervalHistogram(histogram);
+
+                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(
+                        config.output().resolve(operation.key() + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(hgrm, 1_000_000.0);
+                }
+
+                summary.append(String.format("%-40s %9d %7d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                        operation.endpoint(),
+                        histogram.getTotalCount(),
+                        errors.get(operation).get(),
+                        throttled.get(operation).get(),
+                        histogram.getTotalCount() / (double) measured.toSeconds(),
+                        millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9)),
+                        millis(histogram.getMaxValue())));
+            }
+        }
+
+        Files.writeString(config.output().resolve("summary.txt"), summary);
+        System.out.print(summary);
+        System.out.println("Histograms written to " + config.output().toAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.banking_system.loadtest;
+
+/**
+ * API calls the load test can issue, keyed by their name in loadtest.mix.
+ */
+enum Operation {
+
+    LOGIN("login", "POST /api/auth/login"),
+    DEPOSIT("deposit", "POST /api/transactions/deposit"),
+    WITHDRAW("withdraw", "POST /api/transactions/withdraw"),
+    TRANSFER("transfer", "POST /api/transactions/transfer"),
+    HISTORY("history", "GET /api/transactions/my-transactions"),
+    DASHBOARD("dashboard", "GET /api/dashboard/customer-stats");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load test operation: " + key);
+    }
+}
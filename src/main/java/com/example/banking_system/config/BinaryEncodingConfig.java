@@ -0,0 +1,31 @@
+package com.example.banking_system.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR (application/cbor) and Smile (application/x-jackson-smile) encodings
+ * of every response, for clients that ask for them in the Accept header.
+ *
+ * Both are binary forms of the same Jackson model as the JSON responses, so
+ * field names and values match the JSON exactly; BigDecimal amounts keep
+ * their scale. The mappers come from Boot's builder so they share the JSON
+ * mapper's modules and spring.jackson settings. JSON stays first in the
+ * converter order and is still the answer to Accept: *&#47;*.
+ */
+@Configuration
+public class BinaryEncodingConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.cbor().build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.smile().build());
+    }
+}
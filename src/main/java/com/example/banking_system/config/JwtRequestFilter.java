@@ -1,5 +1,6 @@
 package com.example.banking_system.config;
 
+import com.example.banking_system.metrics.jfr.AuthenticationEvent;
 import com.example.banking_system.security.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -33,6 +34,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
         
         final String authorizationHeader = request.getHeader("Authorization");
+        AuthenticationEvent authEvent = new AuthenticationEvent();
+        authEvent.begin();
+        String outcome = "ALREADY_AUTHENTICATED";
         
         String username = null;
         String jwt = null;
@@ -42,6 +46,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             try {
                 username = jwtUtil.extractUsername(jwt);
             } catch (Exception e) {
+                outcome = "INVALID_TOKEN";
                 logger.error("JWT Token parsing error: " + e.getMessage());
             }
         }
@@ -56,12 +61,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                     usernamePasswordAuthenticationToken
                             .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                    outcome = "AUTHENTICATED";
+                } else {
+                    outcome = "INVALID_TOKEN";
                 }
             } catch (Exception e) {
+                outcome = "USER_LOOKUP_FAILED";
                 logger.error("User authentication failed for username: " + username + ". Error: " + e.getMessage());
                 // Continue without setting authentication - user will be treated as anonymous
             }
         }
+        if (jwt != null) {
+            authEvent.finish(outcome, request.getRequestURI());
+        }
         
         filterChain.doFilter(request, response);
     }
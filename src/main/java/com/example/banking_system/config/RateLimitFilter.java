@@ -0,0 +1,192 @@
+package com.example.banking_system.config;
+
+import com.example.banking_system.dto.ErrorResponse;
+import com.example.banking_system.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limits per route group, applied ahead of the JWT filter
+ * and so before its user lookup or any controller or database work.
+ *
+ * Requests with a valid bearer token draw from a bucket of the token's
+ * subject, read from the token alone, the others (every login and
+ * registration attempt, and any token that fails verification) from a bucket
+ * of their client IP, so one flooding integration empties only its own bucket
+ * and other clients keep their full rate. A forged or expired token cannot
+ * open a fresh bucket, since only a verified signature names the subject. Each group has its own buckets: a burst of up to burst
+ * requests, refilled at requests-per-minute. A request over the limit gets a
+ * 429 with Retry-After in whole seconds. Routes outside the groups are not
+ * limited.
+ *
+ * A bucket is one AtomicLong updated with compare-and-set, so concurrent
+ * requests of the same client never block each other. Buckets live in a
+ * bounded Caffeine map and are dropped once idle long enough to have refilled;
+ * an evicted bucket comes back full, which is what it would hold by then
+ * anyway. The client IP is the remote address; behind a proxy, set
+ * server.forward-headers-strategy so it is the forwarded one.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<RouteGroup> groups;
+    private final ObjectMapper objectMapper;
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+
+    public RateLimitFilter(Environment environment, ObjectMapper objectMapper, JwtUtil jwtUtil,
+                           MeterRegistry meterRegistry,
+                           @Value("${banking.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${banking.rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.objectMapper = objectMapper;
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.groups = List.of(
+                new RouteGroup("auth", "/api/auth/**", environment, 10, 30, maxBuckets, meterRegistry),
+                new RouteGroup("transactions", "/api/transactions/**", environment, 50, 600, maxBuckets, meterRegistry),
+                new RouteGroup("admin", "/api/admin/**", environment, 100, 1200, maxBuckets, meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        for (RouteGroup group : groups) {
+            if (group.matcher.matches(request)) {
+                long waitNanos = group.bucketFor(clientKey(request)).tryAcquire(System.nanoTime());
+                if (waitNanos > 0) {
+                    group.rejected.increment();
+                    reject(request, response, group, waitNanos);
+                    return;
+                }
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            try {
+                // Verifies the signature and expiry without touching the database
+                return "user:" + jwtUtil.extractUsername(authorizationHeader.substring(7));
+            } catch (Exception e) {
+                // Limited as the anonymous client it is; the JWT filter logs the bad token
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RouteGroup group,
+                        long waitNanos) throws IOException {
+        long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse error = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(),
+                HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), "RATE_LIMIT_EXCEEDED",
+                "Too many " + group.name + " requests; retry in " + retryAfterSeconds + " seconds",
+                request.getRequestURI());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static final class RouteGroup {
+
+        private final String name;
+        private final RequestMatcher matcher;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter rejected;
+
+        private RouteGroup(String name, String pattern, Environment environment, int defaultBurst,
+                           int defaultPerMinute, long maxBuckets, MeterRegistry meterRegistry) {
+            String prefix = "banking.rate-limit." + name + ".";
+            int burst = environment.getProperty(prefix + "burst", Integer.class, defaultBurst);
+            int perMinute = environment.getProperty(prefix + "requests-per-minute", Integer.class, defaultPerMinute);
+            this.name = name;
+            this.matcher = PathPatternRequestMatcher.withDefaults().matcher(pattern);
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.burstNanos = intervalNanos * burst;
+            // Idle for a full burst's refill time, a bucket is full again and need not be kept
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxBuckets)
+                    .expireAfterAccess(Duration.ofNanos(burstNanos))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets", "group", name);
+            this.rejected = Counter.builder("banking.ratelimit.rejected")
+                    .description("Requests refused with a 429 by the rate limiter")
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+
+        private TokenBucket bucketFor(String key) {
+            return buckets.get(key, k -> new TokenBucket(intervalNanos, burstNanos));
+        }
+    }
+
+    /**
+     * A token bucket held as the single instant at which it would be full
+     * again: each request pushes that instant one interval later, and the
+     * bucket is empty when the instant is more than a whole burst ahead.
+     */
+    private static final class TokenBucket {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        private TokenBucket(long intervalNanos, long burstNanos) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = burstNanos;
+        }
+
+        /**
+         * Takes a token and returns 0, or returns how long until one is free.
+         */
+        private long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.banking_system.config;
+
+import com.example.banking_system.entity.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hands this node's id to Transaction.newReferenceNumber().
+ *
+ * Every node writing to the same databases needs its own id, 0 to 999. A
+ * node without one keeps the random id it started with, which is enough for
+ * a single node but lets two nodes collide one time in a thousand.
+ */
+@Configuration
+public class ReferenceNumberConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceNumberConfig.class);
+
+    public ReferenceNumberConfig(@Value("${banking.reference-numbers.node-id:-1}") int nodeId) {
+        if (nodeId >= 0) {
+            Transaction.setReferenceNode(nodeId);
+        } else {
+            logger.info("banking.reference-numbers.node-id is not set, reference numbers use a random node id");
+        }
+    }
+}
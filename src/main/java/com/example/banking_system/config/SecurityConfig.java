@@ -1,6 +1,7 @@
 package com.example.banking_system.config;
 
 import com.example.banking_system.repository.UserRepository;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -61,13 +62,19 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider, JwtRequestFilter jwtRequestFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider, JwtRequestFilter jwtRequestFilter,
+                                                   RateLimitFilter rateLimitFilter) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
             .cors(Customizer.withDefaults())
             .authorizeHttpRequests(auth -> auth
+                // SSE responses complete on an async dispatch that carries no JWT; the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Includes /actuator/prometheus: the metrics expose transaction amounts and failure rates
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/accounts/**", "/api/transactions/**").hasAnyRole("ADMIN", "CUSTOMER", "TELLER")
                 .anyRequest().authenticated()
@@ -76,6 +83,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider)
             .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+            // Ahead of the JWT filter so a flood is refused before each request loads its user
+            .addFilterBefore(rateLimitFilter, JwtRequestFilter.class)
             .headers(headers -> headers
                 .frameOptions(frameOptions -> frameOptions.sameOrigin())
             );
@@ -88,7 +97,9 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:5173"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "If-None-Match"));
+        // Scripts on another origin can only read the tag to send it back if it is exposed
+        configuration.setExposedHeaders(List.of("ETag"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
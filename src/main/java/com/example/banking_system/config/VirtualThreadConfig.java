@@ -0,0 +1,83 @@
+package com.example.banking_system.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Virtual-thread support. Tomcat request handling and the @Async executor are
+ * switched to virtual threads by spring.threads.virtual.enabled; concurrency is
+ * then bounded by the Hikari pool rather than server.tomcat.threads.max.
+ *
+ * A virtual thread that blocks while inside a synchronized block or a native
+ * frame pins its carrier thread, which silently caps throughput again. The
+ * monitor below streams the JDK's own jdk.VirtualThreadPinned JFR events and
+ * logs where pinning happens.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Value("${banking.virtual-threads.pinning-monitor.enabled:true}")
+    private boolean pinningMonitorEnabled;
+
+    @Value("${banking.virtual-threads.pinning-monitor.threshold-ms:20}")
+    private long pinningThresholdMs;
+
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private RecordingStream pinningStream;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPinningMonitor() {
+        if (!pinningMonitorEnabled) {
+            return;
+        }
+
+        pinningStream = new RecordingStream();
+        pinningStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(pinningThresholdMs))
+                .withStackTrace();
+        pinningStream.onEvent("jdk.VirtualThreadPinned", this::reportPinning);
+        pinningStream.startAsync();
+        logger.info("Virtual thread pinning monitor started (threshold {} ms)", pinningThresholdMs);
+    }
+
+    public long getPinnedEventCount() {
+        return pinnedEvents.get();
+    }
+
+    private void reportPinning(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        String frames = "<no stack trace>";
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> top = event.getStackTrace().getFrames().stream().limit(8).toList();
+            frames = top.stream()
+                    .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                            + ":" + frame.getLineNumber())
+                    .collect(Collectors.joining("\n\tat "));
+        }
+        logger.warn("Virtual thread pinned for {} ms\n\tat {}", event.getDuration().toMillis(), frames);
+    }
+
+    @PreDestroy
+    public void stopPinningMonitor() {
+        if (pinningStream != null) {
+            pinningStream.close();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.example.banking_system.dto.AccountCreateRequest;
 import com.example.banking_system.dto.AccountResponse;
 import com.example.banking_system.dto.MessageResponse;
 import com.example.banking_system.service.AccountService;
+import com.example.banking_system.service.ResponseVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,9 +15,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -27,9 +32,11 @@ import java.util.List;
 public class AccountController {
     
     private final AccountService accountService;
+    private final ResponseVersionService responseVersionService;
     
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, ResponseVersionService responseVersionService) {
         this.accountService = accountService;
+        this.responseVersionService = responseVersionService;
     }
     
     @PostMapping("/create")
@@ -106,10 +113,15 @@ public class AccountController {
     @GetMapping("/my-accounts")
     @Operation(summary = "Get my accounts", description = "Get all active accounts for the authenticated user")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getMyAccounts() {
+    public ResponseEntity<?> getMyAccounts(Authentication authentication, WebRequest request) {
         try {
+            // A client whose copy is current gets a 304 without the accounts being loaded
+            String eTag = responseVersionService.userETag("my-accounts", authentication.getName(), request);
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return null;
+            }
             List<AccountResponse> accounts = accountService.getMyAccounts();
-            return ResponseEntity.ok(accounts);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).body(accounts);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse(e.getMessage()));
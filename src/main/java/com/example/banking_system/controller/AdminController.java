@@ -4,12 +4,22 @@ import com.example.banking_system.dto.AdminUserRequest;
 import com.example.banking_system.dto.MessageResponse;
 import com.example.banking_system.dto.RegisterRequest;
 import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.InterestAccrualRun;
 import com.example.banking_system.entity.Role;
 import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.entity.TransactionArchive;
 import com.example.banking_system.entity.User;
-import com.example.banking_system.repository.TransactionRepository;
 import com.example.banking_system.repository.UserRepository;
 import com.example.banking_system.service.AuthService;
+import com.example.banking_system.service.CustomerImportService;
+import com.example.banking_system.service.FlightRecordingService;
+import com.example.banking_system.service.HotAccountService;
+import com.example.banking_system.service.InterestAccrualService;
+import com.example.banking_system.service.StripedBalanceService;
+import com.example.banking_system.service.TransactionSearchService;
+import com.example.banking_system.service.TransactionPartitionService;
+import com.example.banking_system.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,11 +31,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -40,11 +60,32 @@ public class AdminController {
     private UserRepository userRepository;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private TransactionService transactionService;
     
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TransactionPartitionService transactionPartitionService;
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private InterestAccrualService interestAccrualService;
+
+    @Autowired
+    private CustomerImportService customerImportService;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
     @GetMapping("/users")
     @Operation(
         summary = "Get all users", 
@@ -154,10 +195,26 @@ public class AdminController {
      */
     @GetMapping("/transactions")
     public ResponseEntity<Page<TransactionResponse>> getAllTransactions(Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findAll(pageable);
-        Page<TransactionResponse> transactionResponses = transactions.map(TransactionResponse::new);
+        return ResponseEntity.ok(transactionService.getAllTransactions(pageable));
+    }
 
-        return ResponseEntity.ok(transactionResponses);
+    /**
+     * Search transactions newest first by date range (the last week by default), type, status, amount range
+     * and description text; pass nextCursor back as cursor for the following page - Admin only
+     */
+    @GetMapping("/transactions/search")
+    public ResponseEntity<TransactionSearchService.SearchPage> searchTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Transaction.TransactionType> type,
+            @RequestParam(required = false) List<Transaction.TransactionStatus> status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(transactionSearchService.search(new TransactionSearchService.Criteria(
+                from, to, type, status, minAmount, maxAmount, description, cursor, size)));
     }
 
     /**
@@ -169,14 +226,123 @@ public class AdminController {
             Pageable pageable) {
         
         // Verify user exists
-        userRepository.findById(userId)
+        User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Page<Transaction> transactions = transactionRepository.findUserTransactions(userId, pageable);
-        
-        Page<TransactionResponse> transactionResponses = transactions.map(TransactionResponse::new);
+        return ResponseEntity.ok(transactionService.getUserTransactions(user, pageable));
+    }
+
+    /**
+     * List archived transaction months - Admin only
+     */
+    @GetMapping("/archives")
+    public ResponseEntity<List<TransactionArchive>> getTransactionArchives() {
+        return ResponseEntity.ok(transactionPartitionService.getArchives());
+    }
+
+    /**
+     * Archive cold transaction months now instead of waiting for the nightly run - Admin only
+     */
+    @PostMapping("/archives/run")
+    public ResponseEntity<List<TransactionArchive>> runTransactionArchival() {
+        return ResponseEntity.ok(transactionPartitionService.archiveColdMonths());
+    }
+
+    /**
+     * Switch hot-account credit coalescing on or off for an account - Admin only
+     */
+    @PutMapping("/accounts/{accountId}/hot")
+    public ResponseEntity<MessageResponse> updateHotAccount(
+            @PathVariable Long accountId,
+            @RequestParam boolean enabled) {
+        Account account = hotAccountService.setHotAccount(accountId, enabled);
+        String mode = enabled ? "enabled" : "disabled";
+        return ResponseEntity.ok(new MessageResponse("Hot-account mode " + mode + " for " + account.getAccountNumber()));
+    }
+
+    /**
+     * Spread an account's balance over stripe rows, or fold it back with count 1 - Admin only
+     */
+    @PutMapping("/accounts/{accountId}/stripes")
+    public ResponseEntity<MessageResponse> updateStripeCount(
+            @PathVariable Long accountId,
+            @RequestParam int count) {
+        Account account = stripedBalanceService.setStripeCount(accountId, count);
+        String mode = count > 1 ? "striped over " + count + " rows" : "unstriped";
+        return ResponseEntity.ok(new MessageResponse("Balance of " + account.getAccountNumber() + " " + mode));
+    }
 
-        return ResponseEntity.ok(transactionResponses);
+    /**
+     * Recent interest accrual runs per shard - Admin only
+     */
+    @GetMapping("/interest/runs")
+    public ResponseEntity<List<InterestAccrualRun>> getInterestAccrualRuns() {
+        return ResponseEntity.ok(interestAccrualService.getRecentRuns());
+    }
+
+    /**
+     * Accrue interest for a day that has ended, by default yesterday; resumes an interrupted run - Admin only
+     */
+    @PostMapping("/interest/run")
+    public ResponseEntity<InterestAccrualService.AccrualSummary> runInterestAccrual(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(interestAccrualService.accrue(date != null ? date : LocalDate.now().minusDays(1)));
+    }
+
+    /**
+     * Import customers, and optionally an account each, from a CSV request body read as it streams in;
+     * rows that fail are listed in the report without stopping the import - Admin only
+     */
+    @PostMapping(value = "/imports/customers", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<CustomerImportService.ImportReport> importCustomers(InputStream csv) {
+        return ResponseEntity.ok(customerImportService.importCustomers(csv));
+    }
+
+    /**
+     * Progress of running customer imports and the reports of recent ones - Admin only
+     */
+    @GetMapping("/imports")
+    public ResponseEntity<List<CustomerImportService.ImportReport>> getImports() {
+        return ResponseEntity.ok(customerImportService.getImports());
+    }
+
+    /**
+     * Flight recording status - Admin only
+     */
+    @GetMapping("/jfr")
+    public ResponseEntity<FlightRecordingService.RecordingStatus> getFlightRecordingStatus() {
+        return ResponseEntity.ok(flightRecordingService.status());
+    }
+
+    /**
+     * Start a flight recording with the JDK's "default" or "profile" settings - Admin only
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<FlightRecordingService.RecordingStatus> startFlightRecording(
+            @RequestParam(required = false) String settings) {
+        return ResponseEntity.ok(flightRecordingService.start(settings));
+    }
+
+    /**
+     * Stop the flight recording and keep it for download - Admin only
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<FlightRecordingService.RecordingStatus> stopFlightRecording() {
+        return ResponseEntity.ok(flightRecordingService.stop());
+    }
+
+    /**
+     * Download the flight recording; a running recording is dumped without stopping it - Admin only
+     */
+    @GetMapping("/jfr/recording")
+    public ResponseEntity<Resource> downloadFlightRecording() {
+        FlightRecordingService.Download download = flightRecordingService.download();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(download.size())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(download.fileName()).build().toString())
+                .body(new InputStreamResource(download.content()));
     }
 
     /**
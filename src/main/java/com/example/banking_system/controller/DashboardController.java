@@ -2,16 +2,20 @@ package com.example.banking_system.controller;
 
 import com.example.banking_system.dto.DashboardStatsDTO;
 import com.example.banking_system.service.DashboardService;
+import com.example.banking_system.service.ResponseVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -22,6 +26,9 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private ResponseVersionService responseVersionService;
+
     @GetMapping("/admin-stats")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get admin dashboard statistics", description = "Retrieve comprehensive system statistics for admin dashboard")
@@ -29,9 +36,14 @@ public class DashboardController {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved admin statistics"),
         @ApiResponse(responseCode = "403", description = "Access denied - admin only")
     })
-    public ResponseEntity<DashboardStatsDTO> getAdminStats() {
+    public ResponseEntity<DashboardStatsDTO> getAdminStats(WebRequest request) {
+        // The statistics scan the whole book, so an unchanged poll is answered from the version alone
+        String eTag = responseVersionService.bookETag("admin-stats", request);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         DashboardStatsDTO stats = dashboardService.getAdminStats();
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).body(stats);
     }
 
     @GetMapping("/teller-stats")
@@ -41,9 +53,13 @@ public class DashboardController {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved teller statistics"),
         @ApiResponse(responseCode = "403", description = "Access denied - teller or admin only")
     })
-    public ResponseEntity<DashboardStatsDTO> getTellerStats() {
+    public ResponseEntity<DashboardStatsDTO> getTellerStats(WebRequest request) {
+        String eTag = responseVersionService.bookETag("teller-stats", request);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         DashboardStatsDTO stats = dashboardService.getTellerStats();
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).body(stats);
     }
 
     @GetMapping("/customer-stats")
@@ -53,9 +69,13 @@ public class DashboardController {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved customer statistics"),
         @ApiResponse(responseCode = "403", description = "Access denied - customer only")
     })
-    public ResponseEntity<DashboardStatsDTO> getCustomerStats(Authentication authentication) {
+    public ResponseEntity<DashboardStatsDTO> getCustomerStats(Authentication authentication, WebRequest request) {
         String username = authentication.getName();
+        String eTag = responseVersionService.userDashboardETag("customer-stats", username, request);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         DashboardStatsDTO stats = dashboardService.getCustomerStats(username);
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).body(stats);
     }
 }
\ No newline at end of file
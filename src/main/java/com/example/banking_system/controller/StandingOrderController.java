@@ -0,0 +1,68 @@
+package com.example.banking_system.controller;
+
+import com.example.banking_system.dto.MessageResponse;
+import com.example.banking_system.dto.StandingOrderRequest;
+import com.example.banking_system.dto.StandingOrderResponse;
+import com.example.banking_system.service.StandingOrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/standing-orders")
+@Tag(name = "Standing Orders", description = "Recurring transfer APIs")
+@SecurityRequirement(name = "bearerAuth")
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+
+    public StandingOrderController(StandingOrderService standingOrderService) {
+        this.standingOrderService = standingOrderService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Create standing order",
+               description = "Schedule a recurring transfer from one of your accounts, first paid on the start date")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    public ResponseEntity<?> create(@Valid @RequestBody StandingOrderRequest request) {
+        try {
+            StandingOrderResponse order = standingOrderService.create(request);
+            return ResponseEntity.ok(order);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/my-orders")
+    @Operation(summary = "Get my standing orders", description = "Get the standing orders of the authenticated user")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMyStandingOrders() {
+        try {
+            List<StandingOrderResponse> orders = standingOrderService.getMyStandingOrders();
+            return ResponseEntity.ok(orders);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Cancel standing order", description = "Stop a standing order; payments already made are kept")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        try {
+            StandingOrderResponse order = standingOrderService.cancel(id);
+            return ResponseEntity.ok(order);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
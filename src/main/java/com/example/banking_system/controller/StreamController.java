@@ -0,0 +1,37 @@
+package com.example.banking_system.controller;
+
+import com.example.banking_system.entity.User;
+import com.example.banking_system.service.ActivityStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@Tag(name = "Live Updates", description = "Server-Sent Events streams of account activity")
+@SecurityRequirement(name = "bearerAuth")
+public class StreamController {
+
+    private final ActivityStreamService activityStreamService;
+
+    public StreamController(ActivityStreamService activityStreamService) {
+        this.activityStreamService = activityStreamService;
+    }
+
+    @GetMapping(value = "/my-activity", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream my activity",
+               description = "Pushes an 'activity' event with the transaction and new balances whenever one of the user's accounts is posted to. " +
+                             "A 'resync' event means updates were dropped and the client should refetch its accounts and transactions.")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN') or hasRole('TELLER')")
+    public SseEmitter streamMyActivity(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return activityStreamService.subscribe(user.getId());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.banking_system.controller;
 
 import com.example.banking_system.dto.*;
+import com.example.banking_system.service.ResponseVersionService;
 import com.example.banking_system.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,9 +17,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -29,9 +34,11 @@ import java.util.List;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final ResponseVersionService responseVersionService;
     
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, ResponseVersionService responseVersionService) {
         this.transactionService = transactionService;
+        this.responseVersionService = responseVersionService;
     }
     
     @PostMapping("/deposit")
@@ -93,15 +100,22 @@ public class TransactionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "timestamp") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            Authentication authentication,
+            WebRequest request) {
         try {
+            // The tag covers every page: each is keyed by its own URL, and all change together
+            String eTag = responseVersionService.userETag("my-transactions", authentication.getName(), request);
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return null;
+            }
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : 
                 Sort.by(sortBy).ascending();
             
             Pageable pageable = PageRequest.of(page, size, sort);
             Page<TransactionResponse> transactions = transactionService.getUserTransactions(pageable);
-            return ResponseEntity.ok(transactions);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).body(transactions);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse(e.getMessage()));
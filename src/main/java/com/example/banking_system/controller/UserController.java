@@ -1,7 +1,9 @@
 package com.example.banking_system.controller;
 
+import com.example.banking_system.dto.CustomerSearchResult;
 import com.example.banking_system.dto.MessageResponse;
 import com.example.banking_system.entity.User;
+import com.example.banking_system.service.UserSearchService;
 import com.example.banking_system.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -25,6 +27,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserSearchService userSearchService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('TELLER')")
     @Operation(summary = "Get all users", description = "Retrieve all users (admin and teller access)")
@@ -96,4 +101,23 @@ public class UserController {
         List<User> customers = userService.getAllCustomers();
         return ResponseEntity.ok(customers);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TELLER')")
+    @Operation(summary = "Search customers",
+               description = "Find users by part of their username, email, name, phone or account number")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching users, with the account when matched by one"),
+        @ApiResponse(responseCode = "400", description = "Query shorter than two characters")
+    })
+    public ResponseEntity<?> searchCustomers(@RequestParam String q,
+                                             @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<CustomerSearchResult> results = userSearchService.search(q, limit);
+            return ResponseEntity.ok(results);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
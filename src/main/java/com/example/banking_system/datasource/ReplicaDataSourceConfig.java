@@ -0,0 +1,93 @@
+package com.example.banking_system.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes @Transactional(readOnly = true) work to read replicas and everything
+ * else to the primary.
+ *
+ * The lazy proxy only fetches a physical connection on the first statement, by
+ * which point Spring has marked the transaction read-only, so the choice of
+ * pool follows the transaction attribute rather than whichever pool happened
+ * to be asked first.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(name = "banking.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReplicaDataSourceProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaDataSourceProperties.Node node = properties.getNodes().get(i);
+            String name = node.getName() != null ? node.getName() : "replica-" + i;
+
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(node.getUrl());
+            replica.setUsername(node.getUsername());
+            replica.setPassword(node.getPassword());
+            if (node.getDriverClassName() != null) {
+                replica.setDriverClassName(node.getDriverClassName());
+            }
+            replica.setMaximumPoolSize(node.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, properties.getMaxLagMs());
+        routing.afterPropertiesSet();
+        routing.refreshHealth();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaHealthChecker(replicaRoutingDataSource);
+    }
+
+    public static class ReplicaHealthChecker {
+
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource) {
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Scheduled(fixedDelayString = "${banking.datasource.replicas.health-check-interval-ms:2000}")
+        public void checkReplicaHealth() {
+            routingDataSource.refreshHealth();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.banking_system.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica settings, bound from banking.datasource.replicas.*
+ */
+@Data
+@ConfigurationProperties(prefix = "banking.datasource.replicas")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled = false;
+
+    // Replicas further behind the primary than this are skipped until they catch up
+    private long maxLagMs = 5000;
+
+    private long healthCheckIntervalMs = 2000;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 20;
+    }
+}
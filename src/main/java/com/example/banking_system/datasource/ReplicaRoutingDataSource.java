@@ -0,0 +1,100 @@
+package com.example.banking_system.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Target for read-only connections. Spreads them round-robin over the replicas
+ * that are reachable and within the allowed lag, and falls back to the primary
+ * when none are.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Zero when the replica has replayed everything it received, otherwise time since the last replayed commit
+    private static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMs = maxLagMs;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        List<String> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            logger.debug("No healthy replica, serving read-only connection from primary");
+            return PRIMARY;
+        }
+        String replica = candidates.get(Math.floorMod(cursor.getAndIncrement(), candidates.size()));
+        logger.debug("Serving read-only connection from {}", replica);
+        return replica;
+    }
+
+    /**
+     * Re-evaluates which replicas may serve reads. Called periodically by the health checker.
+     */
+    public void refreshHealth() {
+        List<String> healthy = replicas.entrySet().stream()
+                .filter(entry -> isUsable(entry.getKey(), entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+
+        if (!healthy.equals(healthyReplicas)) {
+            logger.info("Healthy read replicas changed: {} -> {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    private boolean isUsable(String name, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                // H2 and other local stand-ins have no replication lag to measure
+                return connection.isValid(1);
+            }
+            try (ResultSet rs = statement.executeQuery(POSTGRES_LAG_QUERY)) {
+                long lagMs = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                if (lagMs > maxLagMs) {
+                    logger.warn("Replica {} is {} ms behind primary (limit {} ms), routing reads elsewhere", name, lagMs, maxLagMs);
+                    return false;
+                }
+                return true;
+            }
+        } catch (Exception e) {
+            logger.warn("Replica {} unavailable: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
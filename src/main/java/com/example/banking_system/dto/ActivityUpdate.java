@@ -0,0 +1,28 @@
+package com.example.banking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Payload pushed to clients on the activity stream
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityUpdate {
+
+    private TransactionResponse transaction;
+    private List<AccountBalance> balances;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AccountBalance {
+        private String accountNumber;
+        private BigDecimal balance;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.banking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerSearchResult {
+    
+    private Long userId;
+    private String username;
+    private String fullName;
+    private String email;
+    private String phoneNumber;
+    private Boolean enabled;
+    
+    // Set when the customer was found through one of their accounts
+    private Long accountId;
+    private String accountNumber;
+    private String accountType;
+    private Boolean accountActive;
+}
@@ -0,0 +1,34 @@
+package com.example.banking_system.dto;
+
+import com.example.banking_system.entity.StandingOrder;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class StandingOrderRequest {
+    
+    @NotBlank(message = "Source account number is required")
+    private String sourceAccountNumber;
+    
+    @NotBlank(message = "Target account number is required")
+    private String targetAccountNumber;
+    
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    private BigDecimal amount;
+    
+    private String description;
+    
+    @NotNull(message = "Frequency is required")
+    private StandingOrder.Frequency frequency;
+    
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+    
+    private LocalDate endDate;
+}
@@ -0,0 +1,48 @@
+package com.example.banking_system.dto;
+
+import com.example.banking_system.entity.StandingOrder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StandingOrderResponse {
+    
+    private Long id;
+    private String sourceAccountNumber;
+    private String targetAccountNumber;
+    private BigDecimal amount;
+    private String description;
+    private StandingOrder.Frequency frequency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDate nextDueDate;
+    private LocalDateTime nextRunAt;
+    private StandingOrder.Status status;
+    private String lastError;
+    private LocalDateTime lastRunAt;
+    private LocalDateTime createdAt;
+    
+    public StandingOrderResponse(StandingOrder order) {
+        this.id = order.getId();
+        this.sourceAccountNumber = order.getSourceAccountNumber();
+        this.targetAccountNumber = order.getTargetAccountNumber();
+        this.amount = order.getAmount();
+        this.description = order.getDescription();
+        this.frequency = order.getFrequency();
+        this.startDate = order.getStartDate();
+        this.endDate = order.getEndDate();
+        this.nextDueDate = order.getNextDueDate();
+        this.nextRunAt = order.getNextRunAt();
+        this.status = order.getStatus();
+        this.lastError = order.getLastError();
+        this.lastRunAt = order.getLastRunAt();
+        this.createdAt = order.getCreatedAt();
+    }
+}
@@ -27,10 +27,11 @@ public class TransactionResponse {
         this.id = transaction.getId();
         this.amount = transaction.getAmount();
         this.type = transaction.getType();
+        // A cross-shard transfer leg only links its local account; the other side is the counterparty
         this.sourceAccountNumber = transaction.getSourceAccount() != null ? 
-            transaction.getSourceAccount().getAccountNumber() : null;
+            transaction.getSourceAccount().getAccountNumber() : transaction.getCounterpartyAccountNumber();
         this.targetAccountNumber = transaction.getTargetAccount() != null ? 
-            transaction.getTargetAccount().getAccountNumber() : null;
+            transaction.getTargetAccount().getAccountNumber() : transaction.getCounterpartyAccountNumber();
         this.description = transaction.getDescription();
         this.referenceNumber = transaction.getReferenceNumber();
         this.timestamp = transaction.getTimestamp();
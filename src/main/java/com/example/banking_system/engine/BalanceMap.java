@@ -0,0 +1,115 @@
+package com.example.banking_system.engine;
+
+/**
+ * Account id to balance in cents, as an open-addressing hash table over two
+ * primitive arrays. No boxing and no per-entry objects, so a few million
+ * accounts cost two flat arrays and the writer thread never allocates on the
+ * posting path.
+ *
+ * Not thread-safe: only the engine's writer thread touches it.
+ */
+class BalanceMap {
+
+    static final long MISSING = Long.MIN_VALUE;
+
+    // Account ids start at 1, so 0 marks an empty slot
+    private static final long EMPTY_KEY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int resizeAt;
+
+    BalanceMap(int expectedAccounts) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedAccounts * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private BalanceMap(BalanceMap original) {
+        keys = original.keys.clone();
+        values = original.values.clone();
+        size = original.size;
+        resizeAt = original.resizeAt;
+    }
+
+    /**
+     * An independent copy, for handing the balances to another thread. Two
+     * array copies, so the writer pauses for milliseconds even with millions
+     * of accounts.
+     */
+    BalanceMap copy() {
+        return new BalanceMap(this);
+    }
+
+    long get(long accountId) {
+        int slot = find(accountId);
+        return keys[slot] == accountId ? values[slot] : MISSING;
+    }
+
+    void put(long accountId, long cents) {
+        int slot = find(accountId);
+        if (keys[slot] != accountId) {
+            keys[slot] = accountId;
+            if (++size >= resizeAt) {
+                values[slot] = cents;
+                grow();
+                return;
+            }
+        }
+        values[slot] = cents;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calls the visitor for every entry, in no particular order.
+     */
+    void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(long accountId) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(accountId) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != accountId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        // Linear probing stays short up to about 70% full
+        resizeAt = (int) (capacity * 0.7);
+    }
+
+    // Sequential ids would otherwise fill neighbouring slots and lengthen probes
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(long accountId, long cents);
+    }
+}
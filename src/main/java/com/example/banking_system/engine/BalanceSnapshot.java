@@ -0,0 +1,8 @@
+package com.example.banking_system.engine;
+
+/**
+ * Every balance the writer held after the journal record with the given
+ * sequence.
+ */
+record BalanceSnapshot(long sequence, BalanceMap balances) {
+}
@@ -0,0 +1,17 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+
+/**
+ * One accepted posting as written to the journal. Account ids are 0 where the
+ * posting has no such side; amounts are in cents.
+ */
+record JournalRecord(long sequence,
+                     Transaction.TransactionType type,
+                     long sourceAccountId,
+                     long targetAccountId,
+                     long amountCents,
+                     long timestampMillis,
+                     String referenceNumber,
+                     String description) {
+}
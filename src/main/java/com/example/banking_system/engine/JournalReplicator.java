@@ -0,0 +1,207 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.EngineCheckpoint;
+import com.example.banking_system.repository.EngineCheckpointRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import com.lmax.disruptor.EventHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copies journaled postings into the transactions and accounts tables.
+ *
+ * Runs as the ring buffer consumer behind the engine's writer, so it sees
+ * postings only once they are journaled and acknowledged, and a database that
+ * falls behind eventually fills the ring and slows producers down instead of
+ * queueing without bound. Each batch inserts its transactions with JDBC
+ * batching, applies the summed balance change of every account it touches and
+ * moves the checkpoint in one database transaction.
+ *
+ * A batch that fails on an unavailable database or a lock conflict is retried
+ * with backoff. Any other failure would fail again on every retry, so the
+ * replicator halts instead: it logs the batch at ERROR, sets the
+ * banking.engine.replication.halted gauge and leaves everything from that
+ * batch on in the journal, and the engine rejects postings until it is
+ * restarted once the cause is fixed.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.engine.enabled", havingValue = "true")
+public class JournalReplicator implements EventHandler<PostingCommand> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalReplicator.class);
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions (amount, type, source_account_id, " +
+            "target_account_id, description, reference_number, timestamp, status) VALUES (?, ?, ?, ?, ?, ?, ?, 'COMPLETED')";
+    private static final String ADD_TO_BALANCE = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    private static final long MAX_RETRY_DELAY_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EngineCheckpointRepository checkpointRepository;
+    private final ShardRouter shardRouter;
+    private final List<JournalRecord> pending = new ArrayList<>();
+    private volatile long lastReplicated;
+    private volatile boolean stopping;
+    private volatile boolean halted;
+
+    @Value("${banking.engine.replication-batch-size:1000}")
+    private int batchSize;
+
+    public JournalReplicator(JdbcTemplate jdbcTemplate,
+                             EngineCheckpointRepository checkpointRepository,
+                             ShardRouter shardRouter,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.shardRouter = shardRouter;
+        Gauge.builder("banking.engine.replication.halted", this, replicator -> replicator.halted ? 1 : 0)
+                .description("1 once journal replication stopped on a failure retrying cannot fix")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onEvent(PostingCommand command, long ringSequence, boolean endOfBatch) {
+        if (halted) {
+            // The checkpoint stays before the failed batch, so restart replays all of it
+            return;
+        }
+        if (command.isJournaled()) {
+            pending.add(command.toRecord());
+        }
+        if (pending.size() >= batchSize || (endOfBatch && !pending.isEmpty())) {
+            replicateWithRetry(pending);
+            pending.clear();
+        }
+    }
+
+    /**
+     * The last journal sequence already in the database.
+     */
+    long replicatedSequence() {
+        lastReplicated = shardRouter.onShard(0, true, () -> checkpointRepository.findById(EngineCheckpoint.ENGINE_ID)
+                .map(EngineCheckpoint::getJournalSequence)
+                .orElse(0L));
+        return lastReplicated;
+    }
+
+    /**
+     * The last sequence this replicator has written, without asking the
+     * database.
+     */
+    long lastReplicated() {
+        return lastReplicated;
+    }
+
+    /**
+     * Whether replication stopped on a failure that retrying cannot fix.
+     */
+    boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * Replicates records replayed from the journal at startup, before the ring
+     * buffer runs.
+     */
+    void replicateAll(List<JournalRecord> records) {
+        for (int from = 0; from < records.size(); from += batchSize) {
+            replicateWithRetry(records.subList(from, Math.min(records.size(), from + batchSize)));
+        }
+    }
+
+    /**
+     * Makes a replication stuck on an unavailable database give up at
+     * shutdown; its records stay in the journal and are replayed on restart.
+     */
+    void stop() {
+        stopping = true;
+    }
+
+    private void replicateWithRetry(List<JournalRecord> records) {
+        long delay = 100;
+        while (!halted) {
+            try {
+                replicate(records);
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    halted = true;
+                    logger.error("Journal replication halted: records {} to {} cannot be written and stay in the journal; "
+                                    + "postings are rejected until the engine is restarted",
+                            records.get(0).sequence(), records.get(records.size() - 1).sequence(), e);
+                    return;
+                }
+                if (stopping) {
+                    logger.warn("Leaving journal records {} to {} for replay: {}",
+                            records.get(0).sequence(), records.get(records.size() - 1).sequence(), e.getMessage());
+                    return;
+                }
+                logger.warn("Replicating journal records failed, retrying in {} ms: {}", delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(MAX_RETRY_DELAY_MS, delay * 2);
+            }
+        }
+    }
+
+    // Only an unavailable database or a lock conflict can succeed on a later try
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void replicate(List<JournalRecord> records) {
+        // Accounts are updated in id order so two batches can never wait on each other
+        Map<Long, Long> balanceChanges = new TreeMap<>();
+        List<Object[]> inserts = new ArrayList<>(records.size());
+        for (JournalRecord record : records) {
+            if (record.sourceAccountId() != 0) {
+                balanceChanges.merge(record.sourceAccountId(), -record.amountCents(), Long::sum);
+            }
+            if (record.targetAccountId() != 0) {
+                balanceChanges.merge(record.targetAccountId(), record.amountCents(), Long::sum);
+            }
+            inserts.add(new Object[]{
+                    BigDecimal.valueOf(record.amountCents(), 2),
+                    record.type().name(),
+                    record.sourceAccountId() != 0 ? record.sourceAccountId() : null,
+                    record.targetAccountId() != 0 ? record.targetAccountId() : null,
+                    record.description(),
+                    record.referenceNumber(),
+                    new Timestamp(record.timestampMillis())});
+        }
+        List<Object[]> updates = new ArrayList<>(balanceChanges.size());
+        balanceChanges.forEach((accountId, cents) -> updates.add(new Object[]{BigDecimal.valueOf(cents, 2), accountId}));
+        long lastSequence = records.get(records.size() - 1).sequence();
+
+        shardRouter.onShard(0, false, () -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, inserts);
+            jdbcTemplate.batchUpdate(ADD_TO_BALANCE, updates);
+            checkpointRepository.save(new EngineCheckpoint(EngineCheckpoint.ENGINE_ID, lastSequence, null));
+            return null;
+        });
+        lastReplicated = lastSequence;
+    }
+}
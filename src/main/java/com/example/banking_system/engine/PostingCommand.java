@@ -0,0 +1,67 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ring buffer slot. Slots are preallocated and reused, so a producer fills
+ * every field on publish and the writer records its outcome in place.
+ */
+final class PostingCommand {
+
+    enum Kind {
+        POSTING, BALANCE, SNAPSHOT
+    }
+
+    // Filled by the producer
+    Kind kind;
+    Transaction.TransactionType type;
+    long sourceAccountId;
+    long targetAccountId;
+    // Database balances to start from when the engine has not seen the account yet
+    long sourceOpeningCents;
+    long targetOpeningCents;
+    long amountCents;
+    long timestampMillis;
+    String referenceNumber;
+    String description;
+    CompletableFuture<PostingReceipt> result;
+    CompletableFuture<BalanceSnapshot> snapshotResult;
+
+    // Filled by the writer; sequence stays 0 unless the posting was journaled
+    long sequence;
+    long sourceBalanceCents;
+    long targetBalanceCents;
+    BalanceSnapshot snapshot;
+    RuntimeException rejection;
+
+    void reset() {
+        kind = null;
+        type = null;
+        sourceAccountId = 0;
+        targetAccountId = 0;
+        sourceOpeningCents = BalanceMap.MISSING;
+        targetOpeningCents = BalanceMap.MISSING;
+        amountCents = 0;
+        timestampMillis = 0;
+        referenceNumber = null;
+        description = null;
+        result = null;
+        snapshotResult = null;
+        sequence = 0;
+        sourceBalanceCents = BalanceMap.MISSING;
+        targetBalanceCents = BalanceMap.MISSING;
+        snapshot = null;
+        rejection = null;
+    }
+
+    boolean isJournaled() {
+        return kind == Kind.POSTING && sequence > 0 && rejection == null;
+    }
+
+    JournalRecord toRecord() {
+        return new JournalRecord(sequence, type, sourceAccountId, targetAccountId, amountCents,
+                timestampMillis, referenceNumber, description);
+    }
+}
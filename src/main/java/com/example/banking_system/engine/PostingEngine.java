@@ -0,0 +1,378 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.PendingCreditRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory posting core for the highest-volume deployments, switched on with
+ * banking.engine.enabled.
+ *
+ * Balances live in a primitive BalanceMap owned by a single PostingWriter
+ * thread. Producers publish postings to a Disruptor ring buffer and block
+ * until the writer acknowledges them, which it does only once the journal
+ * holding them has been forced. A JournalReplicator behind the writer copies
+ * postings into the transactions and accounts tables asynchronously.
+ *
+ * Balances are snapshotted periodically and at shutdown. On startup they are
+ * loaded from the newest snapshot, or from the accounts table if there is
+ * none, and the journal after them is replayed; the journal after the
+ * replication checkpoint is replicated. That recovers everything acknowledged
+ * before a crash while reading only the journal written since the last
+ * snapshot.
+ *
+ * The engine owns every balance while it is on, so it needs a single shard and
+ * no hot-account or striped accounts, which solve the same contention on the
+ * relational path. If the journal cannot be written, or cannot be replicated
+ * for a reason retrying will not fix, the engine halts and rejects postings
+ * until it is restarted.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.engine.enabled", havingValue = "true")
+public class PostingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingEngine.class);
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final AccountRepository accountRepository;
+    private final PendingCreditRepository pendingCreditRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final JournalReplicator replicator;
+    private final MeterRegistry meterRegistry;
+
+    private BalanceMap balances;
+    private PostingJournal journal;
+    private PostingWriter writer;
+    private SnapshotStore snapshots;
+    private final Lock snapshotLock = new ReentrantLock();
+    private long lastSnapshotSequence;
+    private boolean stopped;
+    private Disruptor<PostingCommand> disruptor;
+    private RingBuffer<PostingCommand> ringBuffer;
+
+    @Value("${banking.engine.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${banking.engine.wait-strategy:blocking}")
+    private String waitStrategy;
+
+    @Value("${banking.engine.journal.directory:./journal}")
+    private String journalDirectory;
+
+    @Value("${banking.engine.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${banking.engine.journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${banking.engine.snapshot.retained:2}")
+    private int snapshotsRetained;
+
+    @Value("${banking.engine.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    public PostingEngine(AccountRepository accountRepository,
+                         PendingCreditRepository pendingCreditRepository,
+                         JdbcTemplate jdbcTemplate,
+                         ShardRouter shardRouter,
+                         JournalReplicator replicator,
+                         MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.replicator = replicator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (shardRouter.getShardCount() > 1) {
+            throw new IllegalStateException("The posting engine supports a single shard");
+        }
+        long specialAccounts = shardRouter.onShard(0, true, accountRepository::countHotOrStripedAccounts);
+        long pendingCredits = shardRouter.onShard(0, true, pendingCreditRepository::count);
+        if (specialAccounts > 0 || pendingCredits > 0) {
+            throw new IllegalStateException("The posting engine needs hot-account and striped balances switched off: "
+                    + specialAccounts + " accounts, " + pendingCredits + " pending credits");
+        }
+
+        long started = System.nanoTime();
+        long replicated = replicator.replicatedSequence();
+        snapshots = new SnapshotStore(Paths.get(journalDirectory), snapshotsRetained);
+        BalanceSnapshot snapshot = snapshots.loadLatest();
+        if (snapshot != null) {
+            balances = snapshot.balances();
+        } else {
+            balances = new BalanceMap(1024);
+            jdbcTemplate.query("SELECT id, balance FROM accounts", rs -> {
+                balances.put(rs.getLong(1), toCents(rs.getBigDecimal(2)));
+            });
+        }
+        long balancesAt = snapshot != null ? snapshot.sequence() : replicated;
+        lastSnapshotSequence = balancesAt;
+        long loaded = System.nanoTime();
+
+        // The balances need the journal after the snapshot, the tables need it after the checkpoint
+        List<JournalRecord> tail = new ArrayList<>();
+        journal = new PostingJournal(Paths.get(journalDirectory), segmentSizeMb * 1024 * 1024, fsync);
+        long lastSequence = journal.recover(Math.min(balancesAt, replicated), record -> {
+            if (record.sequence() > balancesAt) {
+                apply(record);
+            }
+            if (record.sequence() > replicated) {
+                tail.add(record);
+            }
+        });
+        if (lastSequence < Math.max(balancesAt, replicated)) {
+            throw new IllegalStateException("The journal in " + journalDirectory + " ends at sequence " + lastSequence
+                    + " but the snapshot is at " + balancesAt + " and the checkpoint at " + replicated);
+        }
+        long replayed = System.nanoTime();
+        replicator.replicateAll(tail);
+        if (replicator.isHalted()) {
+            throw new IllegalStateException("The journal after sequence " + replicated + " cannot be replicated");
+        }
+        long finished = System.nanoTime();
+
+        recordRecovery("load", loaded - started);
+        recordRecovery("replay", replayed - loaded);
+        recordRecovery("replicate", finished - replayed);
+        logger.info("Posting engine started in {} ms: {} balances from {} at sequence {} in {} ms, {} journal records "
+                        + "replayed in {} ms, {} replicated after sequence {} in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(finished - started), balances.size(),
+                snapshot != null ? "snapshot" : "database", balancesAt, TimeUnit.NANOSECONDS.toMillis(loaded - started),
+                lastSequence - balancesAt, TimeUnit.NANOSECONDS.toMillis(replayed - loaded),
+                tail.size(), replicated, TimeUnit.NANOSECONDS.toMillis(finished - replayed));
+
+        writer = new PostingWriter(balances, journal, lastSequence);
+        disruptor = new Disruptor<>(PostingCommand::new, ringSize,
+                Thread.ofPlatform().name("posting-engine-", 0).daemon(true).factory(),
+                ProducerType.MULTI, waitStrategy());
+        disruptor.handleEventsWith(writer).then(replicator);
+        ringBuffer = disruptor.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        snapshotLock.lock();
+        try {
+            stopped = true;
+            boolean drained = false;
+            if (disruptor != null) {
+                try {
+                    // Drains the ring, including replication of what it holds
+                    disruptor.shutdown(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+                    drained = true;
+                } catch (TimeoutException e) {
+                    logger.warn("Posting engine did not drain in {} ms, the rest is replayed on restart", shutdownTimeoutMs);
+                    replicator.stop();
+                    disruptor.halt();
+                }
+            }
+            // With the writer stopped its balances can be written directly, which makes the next start replay nothing
+            if (drained && !writer.isHalted() && writer.lastSequence() > lastSnapshotSequence) {
+                writeSnapshot(new BalanceSnapshot(writer.lastSequence(), balances));
+            }
+            if (journal != null) {
+                journal.close();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Snapshots the balances if anything was posted since the last snapshot,
+     * then deletes the journal segments no restart can need anymore: those
+     * before both the oldest retained snapshot and the replication checkpoint.
+     * The writer only pauses to copy the balance map; the file is written on
+     * the scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "${banking.engine.snapshot.interval-ms:60000}",
+            initialDelayString = "${banking.engine.snapshot.interval-ms:60000}")
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            if (stopped || writer.isHalted() || writer.lastSequence() == lastSnapshotSequence) {
+                return;
+            }
+            CompletableFuture<BalanceSnapshot> result = new CompletableFuture<>();
+            ringBuffer.publishEvent((command, ringSequence) -> {
+                command.reset();
+                command.kind = PostingCommand.Kind.SNAPSHOT;
+                command.snapshotResult = result;
+            });
+            writeSnapshot(result.join());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Balance snapshot failed, restarts replay the journal from the previous one", e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void writeSnapshot(BalanceSnapshot snapshot) throws IOException {
+        long started = System.nanoTime();
+        long oldestRetained = snapshots.write(snapshot);
+        lastSnapshotSequence = snapshot.sequence();
+        journal.deleteSegmentsThrough(Math.min(oldestRetained, replicator.lastReplicated()));
+        logger.info("Wrote balance snapshot of {} accounts at sequence {} in {} ms", snapshot.balances().size(),
+                snapshot.sequence(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public PostingReceipt deposit(Account target, BigDecimal amount, String description) {
+        return post(Transaction.TransactionType.DEPOSIT, null, target, amount, description);
+    }
+
+    public PostingReceipt withdraw(Account source, BigDecimal amount, String description) {
+        return post(Transaction.TransactionType.WITHDRAW, source, null, amount, description);
+    }
+
+    public PostingReceipt transfer(Account source, Account target, BigDecimal amount, String description) {
+        return post(Transaction.TransactionType.TRANSFER, source, target, amount, description);
+    }
+
+    /**
+     * Publishes a transfer without waiting for it. Callers with many postings
+     * keep the ring full this way instead of paying a thread hand-off each;
+     * receipts complete in publication order.
+     */
+    public CompletableFuture<PostingReceipt> transferAsync(Account source, Account target, BigDecimal amount,
+                                                           String description) {
+        return postAsync(Transaction.TransactionType.TRANSFER, source, target, amount, description);
+    }
+
+    /**
+     * The account's current balance, which the accounts table reaches once
+     * replication catches up.
+     */
+    public BigDecimal balanceOf(Account account) {
+        long opening = toCents(account.getBalance());
+        PostingReceipt receipt = await(submit(command -> {
+            command.kind = PostingCommand.Kind.BALANCE;
+            command.targetAccountId = account.getId();
+            command.targetOpeningCents = opening;
+        }));
+        return receipt.targetBalance();
+    }
+
+    private PostingReceipt post(Transaction.TransactionType type, Account source, Account target, BigDecimal amount,
+                                String description) {
+        return await(postAsync(type, source, target, amount, description));
+    }
+
+    private CompletableFuture<PostingReceipt> postAsync(Transaction.TransactionType type, Account source, Account target,
+                                                        BigDecimal amount, String description) {
+        long cents = toCents(amount);
+        long sourceOpening = source != null ? toCents(source.getBalance()) : BalanceMap.MISSING;
+        long targetOpening = target != null ? toCents(target.getBalance()) : BalanceMap.MISSING;
+        String text = description != null && description.length() > MAX_DESCRIPTION_LENGTH
+                ? description.substring(0, MAX_DESCRIPTION_LENGTH) : description;
+        return submit(command -> {
+            command.kind = PostingCommand.Kind.POSTING;
+            command.type = type;
+            command.sourceAccountId = source != null ? source.getId() : 0;
+            command.targetAccountId = target != null ? target.getId() : 0;
+            command.sourceOpeningCents = sourceOpening;
+            command.targetOpeningCents = targetOpening;
+            command.amountCents = cents;
+            command.description = text;
+        });
+    }
+
+    private CompletableFuture<PostingReceipt> submit(Consumer<PostingCommand> filler) {
+        if (writer.isHalted() || replicator.isHalted()) {
+            throw PostingWriter.halted();
+        }
+        CompletableFuture<PostingReceipt> result = new CompletableFuture<>();
+        ringBuffer.publishEvent((command, ringSequence) -> {
+            command.reset();
+            filler.accept(command);
+            command.result = result;
+        });
+        return result;
+    }
+
+    private static PostingReceipt await(CompletableFuture<PostingReceipt> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Replay runs before the writer exists, so it may touch the map directly
+    private void apply(JournalRecord record) {
+        if (record.sourceAccountId() != 0) {
+            long cents = balances.get(record.sourceAccountId());
+            balances.put(record.sourceAccountId(), (cents == BalanceMap.MISSING ? 0 : cents) - record.amountCents());
+        }
+        if (record.targetAccountId() != 0) {
+            long cents = balances.get(record.targetAccountId());
+            balances.put(record.targetAccountId(), (cents == BalanceMap.MISSING ? 0 : cents) + record.amountCents());
+        }
+    }
+
+    private void recordRecovery(String phase, long nanos) {
+        TimeGauge.builder("banking.engine.recovery.time", () -> nanos, TimeUnit.NANOSECONDS)
+                .description("Time the posting engine spent on each recovery phase at startup")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private WaitStrategy waitStrategy() {
+        return switch (waitStrategy) {
+            case "yielding" -> new YieldingWaitStrategy();
+            case "busy-spin" -> new BusySpinWaitStrategy();
+            default -> new BlockingWaitStrategy();
+        };
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new BankingException("Amounts must be whole cents", "INVALID_AMOUNT");
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only posting journal in memory-mapped segment files.
+ *
+ * Each segment is named after the first sequence it holds and preallocated to
+ * a fixed size. A record is [payload length][CRC32C of payload][payload]; a
+ * zero length marks the end of the written part. Appends only copy into the
+ * mapping, and flush() forces the range written since the last flush, so one
+ * fsync covers a whole batch of postings. A record whose length or checksum
+ * does not add up at the tail of the last segment is a write torn by a crash
+ * and is discarded together with everything after it.
+ *
+ * Only the engine's writer thread appends. Segments made redundant by
+ * snapshots and replication are deleted from the snapshot thread.
+ */
+class PostingJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingJournal.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_TEXT_BYTES = 1024;
+    private static final int MAX_PAYLOAD_BYTES = 41 + 2 * (2 + MAX_TEXT_BYTES);
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD_BYTES);
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private int flushedPosition;
+
+    PostingJournal(Path directory, int segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Passes every intact record after the given sequence to the consumer in
+     * order, then opens the journal for appending after the last one. Returns
+     * the last sequence in the journal, or afterSequence if there is none.
+     */
+    long recover(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        long lastSequence = afterSequence;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            // Everything in a segment precedes the first sequence of the next one
+            if (!last && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            FileChannel file = FileChannel.open(segments.get(i), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer mapped = file.map(FileChannel.MapMode.READ_WRITE, 0, file.size());
+            int end = 0;
+            while (true) {
+                JournalRecord record = read(mapped, end);
+                if (record == null) {
+                    break;
+                }
+                if (record.sequence() > afterSequence) {
+                    if (record.sequence() != lastSequence + 1) {
+                        throw new IllegalStateException("Journal sequence jumps from " + lastSequence
+                                + " to " + record.sequence() + " in " + segments.get(i));
+                    }
+                    consumer.accept(record);
+                }
+                lastSequence = Math.max(lastSequence, record.sequence());
+                end += HEADER_BYTES + mapped.getInt(end);
+            }
+            if (!last) {
+                if (end + HEADER_BYTES <= mapped.capacity() && mapped.getInt(end) != 0) {
+                    throw new IllegalStateException("Journal segment " + segments.get(i) + " is corrupt at offset " + end);
+                }
+                file.close();
+                continue;
+            }
+            if (end + HEADER_BYTES <= mapped.capacity() && mapped.getInt(end) != 0) {
+                logger.warn("Discarding torn journal record at offset {} of {}", end, segments.get(i));
+                int tornEnd = Math.min(mapped.capacity(), end + HEADER_BYTES + MAX_PAYLOAD_BYTES);
+                for (int offset = end; offset < tornEnd; offset++) {
+                    mapped.put(offset, (byte) 0);
+                }
+                mapped.force();
+            }
+            channel = file;
+            segment = mapped;
+            position = end;
+            flushedPosition = end;
+        }
+        if (segment == null) {
+            openSegment(lastSequence + 1);
+        }
+        return lastSequence;
+    }
+
+    void append(JournalRecord record) {
+        payload.clear();
+        payload.putLong(record.sequence());
+        payload.put((byte) record.type().ordinal());
+        payload.putLong(record.sourceAccountId());
+        payload.putLong(record.targetAccountId());
+        payload.putLong(record.amountCents());
+        payload.putLong(record.timestampMillis());
+        putText(record.referenceNumber());
+        putText(record.description());
+        int length = payload.position();
+
+        if (position + HEADER_BYTES + length > segment.capacity()) {
+            roll(record.sequence());
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        segment.put(position + HEADER_BYTES, payload.array(), 0, length);
+        segment.putInt(position + 4, (int) crc.getValue());
+        // The length goes in last so a reader never sees a record before its payload
+        segment.putInt(position, length);
+        position += HEADER_BYTES + length;
+    }
+
+    /**
+     * Makes everything appended so far durable.
+     */
+    void flush() {
+        if (fsync && position > flushedPosition) {
+            segment.force(flushedPosition, position - flushedPosition);
+        }
+        flushedPosition = position;
+    }
+
+    /**
+     * Deletes the segments holding only records up to the given sequence.
+     * Only touches closed segments, so it may run outside the writer thread.
+     */
+    void deleteSegmentsThrough(long sequence) throws IOException {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSequence(segments.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private void roll(long nextSequence) {
+        flush();
+        try {
+            channel.close();
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal segment for sequence " + nextSequence, e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        flushedPosition = 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private JournalRecord read(MappedByteBuffer mapped, int offset) {
+        if (offset + HEADER_BYTES > mapped.capacity()) {
+            return null;
+        }
+        int length = mapped.getInt(offset);
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || offset + HEADER_BYTES + length > mapped.capacity()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        mapped.get(offset + HEADER_BYTES, bytes);
+        crc.reset();
+        crc.update(bytes);
+        if ((int) crc.getValue() != mapped.getInt(offset + 4)) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        return new JournalRecord(in.getLong(), TYPES[in.get()], in.getLong(), in.getLong(), in.getLong(),
+                in.getLong(), getText(in), getText(in));
+    }
+
+    private void putText(String text) {
+        if (text == null) {
+            payload.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_TEXT_BYTES);
+        payload.putShort((short) length);
+        payload.put(bytes, 0, length);
+    }
+
+    private static String getText(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.banking_system.engine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Acknowledgement of a journaled posting with the balances it left behind.
+ * A balance is null where the posting has no such side.
+ */
+public record PostingReceipt(long sequence,
+                             String referenceNumber,
+                             LocalDateTime timestamp,
+                             BigDecimal sourceBalance,
+                             BigDecimal targetBalance) {
+}
@@ -0,0 +1,163 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.exception.InsufficientFundsException;
+import com.lmax.disruptor.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The engine's single writer: the only thread that reads or changes balances.
+ *
+ * Each posting is checked against the in-memory balances, appended to the
+ * journal and then applied. Commands are acknowledged at the end of each ring
+ * batch, after one journal flush covers the whole batch, so a posting is never
+ * confirmed before it is durable. If the journal cannot be written the writer
+ * halts and rejects everything until the engine is restarted from the journal.
+ */
+class PostingWriter implements EventHandler<PostingCommand> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingWriter.class);
+
+    private final BalanceMap balances;
+    private final PostingJournal journal;
+    private final List<PostingCommand> unacknowledged = new ArrayList<>();
+    // Read by the snapshot scheduler to skip snapshots while nothing is posted
+    private volatile long lastSequence;
+    private volatile boolean halted;
+
+    PostingWriter(BalanceMap balances, PostingJournal journal, long lastSequence) {
+        this.balances = balances;
+        this.journal = journal;
+        this.lastSequence = lastSequence;
+    }
+
+    @Override
+    public void onEvent(PostingCommand command, long ringSequence, boolean endOfBatch) {
+        try {
+            if (halted) {
+                throw halted();
+            }
+            switch (command.kind) {
+                case POSTING -> execute(command);
+                case BALANCE -> command.targetBalanceCents = current(command.targetAccountId, command.targetOpeningCents);
+                case SNAPSHOT -> command.snapshot = new BalanceSnapshot(lastSequence, balances.copy());
+            }
+        } catch (RuntimeException e) {
+            command.rejection = e;
+        }
+        unacknowledged.add(command);
+        if (endOfBatch) {
+            acknowledge();
+        }
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    boolean isHalted() {
+        return halted;
+    }
+
+    static BankingException halted() {
+        return new BankingException("Posting engine is halted; postings in flight may or may not have been applied",
+                "ENGINE_HALTED", 503);
+    }
+
+    private void execute(PostingCommand command) {
+        long source = 0;
+        long target = 0;
+        if (command.sourceAccountId != 0) {
+            source = current(command.sourceAccountId, command.sourceOpeningCents);
+            if (source < command.amountCents) {
+                throw new InsufficientFundsException("Insufficient funds");
+            }
+            source -= command.amountCents;
+        }
+        if (command.targetAccountId != 0) {
+            target = Math.addExact(current(command.targetAccountId, command.targetOpeningCents), command.amountCents);
+        }
+
+        command.sequence = lastSequence + 1;
+        command.timestampMillis = System.currentTimeMillis();
+        command.referenceNumber = Transaction.newReferenceNumber();
+        try {
+            journal.append(command.toRecord());
+        } catch (RuntimeException e) {
+            command.sequence = 0;
+            halt(e);
+            throw halted();
+        }
+        lastSequence = command.sequence;
+        if (command.sourceAccountId != 0) {
+            balances.put(command.sourceAccountId, source);
+            command.sourceBalanceCents = source;
+        }
+        if (command.targetAccountId != 0) {
+            balances.put(command.targetAccountId, target);
+            command.targetBalanceCents = target;
+        }
+    }
+
+    private void acknowledge() {
+        try {
+            journal.flush();
+        } catch (RuntimeException e) {
+            // Nothing in this batch is known to be durable, so none of it may be confirmed or replicated
+            halt(e);
+            for (PostingCommand command : unacknowledged) {
+                command.rejection = halted();
+            }
+        }
+        for (PostingCommand command : unacknowledged) {
+            if (command.kind == PostingCommand.Kind.SNAPSHOT) {
+                // Handed out only now, so a snapshot never holds postings the journal does not
+                if (command.rejection != null) {
+                    command.snapshotResult.completeExceptionally(command.rejection);
+                } else {
+                    command.snapshotResult.complete(command.snapshot);
+                }
+            } else if (command.rejection != null) {
+                command.result.completeExceptionally(command.rejection);
+            } else {
+                command.result.complete(new PostingReceipt(command.sequence, command.referenceNumber,
+                        command.timestampMillis == 0 ? null
+                                : LocalDateTime.ofInstant(Instant.ofEpochMilli(command.timestampMillis), ZoneId.systemDefault()),
+                        toAmount(command.sourceBalanceCents), toAmount(command.targetBalanceCents)));
+            }
+        }
+        unacknowledged.clear();
+    }
+
+    private long current(long accountId, long openingCents) {
+        long cents = balances.get(accountId);
+        if (cents != BalanceMap.MISSING) {
+            return cents;
+        }
+        // First posting to an account opened after startup: the database balance is still authoritative
+        if (openingCents == BalanceMap.MISSING) {
+            throw new RuntimeException("Account not found: " + accountId);
+        }
+        return openingCents;
+    }
+
+    private void halt(RuntimeException cause) {
+        if (!halted) {
+            halted = true;
+            logger.error("Posting engine halted, the journal could not be written", cause);
+        }
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return cents == BalanceMap.MISSING ? null : BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.banking_system.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Balance snapshots kept next to the journal, so a restart replays only the
+ * journal after the newest one instead of everything since the replication
+ * checkpoint.
+ *
+ * A snapshot file is named after its journal sequence and holds
+ * [magic][version][sequence][count][CRC32C][count x (account id, cents)]; the
+ * checksum covers the header and every entry. It is written to a temporary
+ * file through a memory mapping, forced and renamed into place, so a crash
+ * leaves either the whole snapshot or none. A snapshot that fails its checks
+ * is skipped for the one before it, which is why more than one is retained.
+ */
+class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+    private static final int CHECKSUM_OFFSET = 20;
+    private static final int HEADER_BYTES = 24;
+    private static final int ENTRY_BYTES = 16;
+
+    private final Path directory;
+    private final int retained;
+
+    SnapshotStore(Path directory, int retained) {
+        this.directory = directory;
+        this.retained = Math.max(1, retained);
+    }
+
+    /**
+     * The newest snapshot that passes its checks, or null if there is none.
+     */
+    BalanceSnapshot loadLatest() throws IOException {
+        Files.createDirectories(directory);
+        // Left behind by a crash while writing
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        List<Path> snapshots = snapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            BalanceSnapshot snapshot = read(snapshots.get(i));
+            if (snapshot != null) {
+                return snapshot;
+            }
+            logger.warn("Skipping damaged balance snapshot {}", snapshots.get(i));
+        }
+        return null;
+    }
+
+    /**
+     * Writes the snapshot and deletes all but the newest retained ones.
+     * Returns the sequence of the oldest snapshot still on disk, which is
+     * where the journal has to reach back to.
+     */
+    long write(BalanceSnapshot snapshot) throws IOException {
+        BalanceMap balances = snapshot.balances();
+        long bytes = HEADER_BYTES + (long) ENTRY_BYTES * balances.size();
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Too many accounts for one snapshot file: " + balances.size());
+        }
+        Path target = directory.resolve(fileName(snapshot.sequence()));
+        Path temporary = directory.resolve(fileName(snapshot.sequence()) + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            out.putInt(MAGIC).putInt(VERSION).putLong(snapshot.sequence()).putInt(balances.size()).putInt(0);
+            balances.forEach((accountId, cents) -> out.putLong(accountId).putLong(cents));
+            out.putInt(CHECKSUM_OFFSET, checksum(out));
+            out.force();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+
+        List<Path> snapshots = snapshots();
+        for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - retained))) {
+            Files.deleteIfExists(old);
+        }
+        return sequenceOf(snapshots.get(Math.max(0, snapshots.size() - retained)));
+    }
+
+    private BalanceSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (in.getInt(0) != MAGIC || in.getInt(4) != VERSION) {
+                return null;
+            }
+            long sequence = in.getLong(8);
+            int count = in.getInt(16);
+            if (count < 0 || size != HEADER_BYTES + (long) ENTRY_BYTES * count
+                    || in.getInt(CHECKSUM_OFFSET) != checksum(in) || sequence != sequenceOf(file)) {
+                return null;
+            }
+            BalanceMap balances = new BalanceMap(count);
+            in.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                balances.put(in.getLong(), in.getLong());
+            }
+            return new BalanceSnapshot(sequence, balances);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, CHECKSUM_OFFSET));
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return (int) crc.getValue();
+    }
+
+    // Makes the rename itself durable; not every platform can open a directory for this
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Could not force snapshot directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String fileName(long sequence) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
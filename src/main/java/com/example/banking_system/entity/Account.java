@@ -6,13 +6,17 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Updates write only changed columns, so saving other fields never writes back a stale balance
 @Entity
 @Table(name = "accounts")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +51,18 @@ public class Account {
     @Column(name = "is_active")
     private Boolean isActive = true;
     
+    // Credits go to the pending_credits sub-ledger and are folded into balance in batches
+    @Column(name = "hot_account")
+    private Boolean hotAccount = false;
+    
+    // When above one, the balance is held in this many account_stripes rows and balance stays zero
+    @Column(name = "stripe_count")
+    private Integer stripeCount;
+    
+    // Last day interest was credited for, which keeps a repeated accrual run from paying twice
+    @Column(name = "interest_accrued_through")
+    private LocalDate interestAccruedThrough;
+    
     @OneToMany(mappedBy = "sourceAccount", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> outgoingTransactions;
     
@@ -68,14 +84,38 @@ public class Account {
     }
     
     private void generateAccountNumber() {
+        this.accountNumber = newAccountNumber();
+    }
+    
+    // Exposed so callers that route by account number can pick it before persisting
+    public static String newAccountNumber() {
         // Generate a 10-digit account number
         // Format: ACC + timestamp + random digits
         long timestamp = System.currentTimeMillis() % 1000000; // Last 6 digits of timestamp
         int random = (int) (Math.random() * 10000); // 4 random digits
-        this.accountNumber = String.format("ACC%06d%04d", timestamp, random);
+        return String.format("ACC%06d%04d", timestamp, random);
     }
     
     public enum AccountType {
         CHECKING, SAVINGS, BUSINESS
     }
+    
+    /**
+     * How postings reach the balance: the account row itself, the pending
+     * credit sub-ledger of a hot account, or the account's stripe rows.
+     */
+    public enum PostingMode {
+        STANDARD, HOT, STRIPED;
+        
+        public static PostingMode of(Boolean hotAccount, Integer stripeCount) {
+            if (stripeCount != null && stripeCount > 1) {
+                return STRIPED;
+            }
+            return Boolean.TRUE.equals(hotAccount) ? HOT : STANDARD;
+        }
+    }
+    
+    public PostingMode getPostingMode() {
+        return PostingMode.of(hotAccount, stripeCount);
+    }
 }
\ No newline at end of file
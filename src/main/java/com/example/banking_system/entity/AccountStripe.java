@@ -0,0 +1,34 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One slice of a striped account's balance. The balance of the account is the
+ * sum of its stripes, so concurrent postings can each lock a different row.
+ */
+@Entity
+@Table(name = "account_stripes",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "stripe_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountStripe {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Column(name = "stripe_index", nullable = false)
+    private Integer stripeIndex;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+}
@@ -0,0 +1,39 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last posting engine journal sequence whose effects are in the relational
+ * tables. Updated in the same transaction as the rows it covers, so recovery
+ * replays exactly the journal records after it.
+ */
+@Entity
+@Table(name = "engine_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngineCheckpoint {
+    
+    // There is a single engine per database, so a single row
+    public static final Long ENGINE_ID = 1L;
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "journal_sequence", nullable = false)
+    private Long journalSequence;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one day's interest accrual on one shard. Accounts with ids
+ * below nextAccountId are done, so an interrupted run resumes from there.
+ */
+@Entity
+@Table(name = "interest_accrual_runs",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"accrual_date", "shard"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "accrual_date", nullable = false)
+    private LocalDate accrualDate;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(name = "next_account_id", nullable = false)
+    private Long nextAccountId;
+
+    @Column(name = "accounts_credited", nullable = false)
+    private Long accountsCredited = 0L;
+
+    @Column(name = "interest_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal interestTotal = BigDecimal.ZERO;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+}
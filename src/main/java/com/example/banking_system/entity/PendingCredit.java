@@ -0,0 +1,45 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Credit to a hot account that has been posted but not yet folded into
+ * Account.balance. Rows are only ever inserted, then deleted once folded, so
+ * concurrent credits never contend for the account row.
+ */
+@Entity
+@Table(name = "pending_credits",
+       indexes = @Index(name = "idx_pending_credits_account", columnList = "account_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingCredit {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Plain id rather than an association: a credit never needs the account loaded
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+    
+    @Column(name = "reference_number", nullable = false)
+    private String referenceNumber;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
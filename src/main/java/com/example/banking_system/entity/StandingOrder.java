@@ -0,0 +1,113 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A recurring transfer from one of the owner's accounts. It is stored on the
+ * source account's shard and found by the scheduler through the
+ * (status, next_run_at) index, so a poll only reads the orders that are due.
+ *
+ * Occurrence n falls on startDate plus n periods; counting from the start
+ * rather than from the previous occurrence keeps a monthly order on the 31st
+ * from drifting to the 28th after February. nextRunAt is when the current
+ * occurrence is attempted, which is nextDueDate with the order's spread
+ * offset, a retry delay or a claim lease applied.
+ */
+@Entity
+@Table(name = "standing_orders",
+       indexes = {
+           @Index(name = "idx_standing_orders_due", columnList = "status, next_run_at"),
+           @Index(name = "idx_standing_orders_owner", columnList = "owner_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StandingOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id rather than an association: claiming due orders must not lock user rows
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "source_account_number", nullable = false)
+    private String sourceAccountNumber;
+
+    @Column(name = "target_account_number", nullable = false)
+    private String targetAccountNumber;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Frequency frequency;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(nullable = false)
+    private Integer occurrence = 0;
+
+    @Column(name = "next_due_date", nullable = false)
+    private LocalDate nextDueDate;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    // Failed attempts at the current occurrence
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.ACTIVE;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * The date of the given occurrence, or null once it falls after endDate.
+     */
+    public LocalDate occurrenceDate(int occurrence) {
+        LocalDate date = switch (frequency) {
+            case DAILY -> startDate.plusDays(occurrence);
+            case WEEKLY -> startDate.plusWeeks(occurrence);
+            case MONTHLY -> startDate.plusMonths(occurrence);
+        };
+        return endDate != null && date.isAfter(endDate) ? null : date;
+    }
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    public enum Status {
+        ACTIVE, COMPLETED, CANCELLED
+    }
+}
@@ -8,15 +8,34 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+       // Each account's postings in time order, which also give the version of its responses, and keyset-ordered
+       // walks for the admin transaction search, optionally narrowed by an equality filter first
+       indexes = {
+           @Index(name = "idx_transactions_source_timestamp", columnList = "source_account_id, timestamp"),
+           @Index(name = "idx_transactions_target_timestamp", columnList = "target_account_id, timestamp"),
+           @Index(name = "idx_transactions_search_time", columnList = "timestamp, id"),
+           @Index(name = "idx_transactions_search_type", columnList = "type, timestamp, id"),
+           @Index(name = "idx_transactions_search_status", columnList = "status, timestamp, id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
     
+    private static final long REFERENCES_PER_MILLI = 10_000;
+    private static final AtomicLong referenceClock = new AtomicLong();
+    // Random until ReferenceNumberConfig sets the configured one
+    private static volatile long referenceNode = ThreadLocalRandom.current().nextInt(1000);
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -37,6 +56,10 @@ public class Transaction {
     @JoinColumn(name = "target_account_id")
     private Account targetAccount;
     
+    // Account on the other side of a transfer whose account row lives in another shard
+    @Column(name = "counterparty_account_number")
+    private String counterpartyAccountNumber;
+    
     @Column(name = "description")
     private String description;
     
@@ -59,14 +82,56 @@ public class Transaction {
     }
     
     private void generateReferenceNumber() {
-        // Generate unique reference number: TXN + timestamp + random
-        long timestamp = System.currentTimeMillis();
-        int random = (int) (Math.random() * 1000);
-        this.referenceNumber = String.format("TXN%d%03d", timestamp, random);
+        this.referenceNumber = newReferenceNumber();
+    }
+    
+    /**
+     * A new reference number: TXN, the creation time in epoch milliseconds, a
+     * three-digit node id and a four-digit sequence. Millisecond and sequence
+     * form one counter per process that only moves forward, borrowing from the
+     * next millisecond after 10,000 references in one, so a node never repeats
+     * itself; distinct node ids keep the nodes sharing a database apart. Every
+     * writer of transaction rows takes its references from here.
+     */
+    public static String newReferenceNumber() {
+        long now = System.currentTimeMillis() * REFERENCES_PER_MILLI;
+        long clock = referenceClock.updateAndGet(previous -> Math.max(previous + 1, now));
+        long suffix = referenceNode * REFERENCES_PER_MILLI + clock % REFERENCES_PER_MILLI;
+        // Seven digits, zero-padded: the node id and the sequence
+        return "TXN" + clock / REFERENCES_PER_MILLI + Long.toString(10_000_000 + suffix).substring(1);
+    }
+    
+    /**
+     * Sets the node id, 0 to 999, that this process puts into reference numbers.
+     */
+    public static void setReferenceNode(int node) {
+        if (node < 0 || node > 999) {
+            throw new IllegalArgumentException("Reference number node id must be between 0 and 999: " + node);
+        }
+        referenceNode = node;
+    }
+    
+    /**
+     * Creation time encoded in a reference number from newReferenceNumber(),
+     * or in the older TXN + millis + three random digits format, used to
+     * narrow lookups to the partition the row lives in.
+     */
+    public static Optional<LocalDateTime> referenceTimestamp(String referenceNumber) {
+        if (referenceNumber == null || !referenceNumber.startsWith("TXN")
+                || (referenceNumber.length() != 23 && referenceNumber.length() != 19)) {
+            return Optional.empty();
+        }
+        try {
+            long millis = Long.parseLong(referenceNumber.substring(3, 16));
+            return Optional.of(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
     }
     
+    // Append only: the posting engine journals types by ordinal
     public enum TransactionType {
-        DEPOSIT, WITHDRAW, TRANSFER
+        DEPOSIT, WITHDRAW, TRANSFER, INTEREST
     }
     
     public enum TransactionStatus {
@@ -0,0 +1,48 @@
+package com.example.banking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Manifest entry for one month of transactions moved out of the live table
+ * into a compressed archive file.
+ */
+@Entity
+@Table(name = "transaction_archives",
+       uniqueConstraints = @UniqueConstraint(columnNames = "period_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionArchive {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // First day of the archived month; the period ends where the next month starts
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    
+    @Column(nullable = false)
+    private String location;
+    
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+    
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onArchive() {
+        archivedAt = LocalDateTime.now();
+    }
+}
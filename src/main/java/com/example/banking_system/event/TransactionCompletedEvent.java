@@ -0,0 +1,29 @@
+package com.example.banking_system.event;
+
+import com.example.banking_system.dto.ActivityUpdate;
+import com.example.banking_system.dto.TransactionResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by TransactionService once a posting has been written. Listeners
+ * bound to AFTER_COMMIT only see postings that actually reached the database.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionCompletedEvent {
+
+    private final TransactionResponse transaction;
+
+    // One entry per account touched by the posting, with its owner and new balance
+    private final List<AccountBalanceChange> balanceChanges;
+
+    @Getter
+    @AllArgsConstructor
+    public static class AccountBalanceChange {
+        private final Long userId;
+        private final ActivityUpdate.AccountBalance balance;
+    }
+}
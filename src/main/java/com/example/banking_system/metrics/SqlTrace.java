@@ -0,0 +1,50 @@
+package com.example.banking_system.metrics;
+
+/**
+ * Statement count and database time of the HTTP request running on the current
+ * thread. Statements issued outside a request, or on another thread, are not
+ * attributed to any trace.
+ */
+final class SqlTrace {
+
+    private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+
+    private final String request;
+    private int statements;
+    private long nanos;
+
+    private SqlTrace(String request) {
+        this.request = request;
+    }
+
+    static SqlTrace start(String request) {
+        SqlTrace trace = new SqlTrace(request);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static SqlTrace current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void record(int count, long elapsedNanos) {
+        statements += count;
+        nanos += elapsedNanos;
+    }
+
+    String getRequest() {
+        return request;
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    long getMillis() {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.banking_system.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a datasource-proxy that reports to
+ * SqlTracingListener. Only the outermost "dataSource" bean is wrapped, so with
+ * replicas or shards each statement is seen once, after routing is decided.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.sql-trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTracingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlTracingListener> listener;
+
+    public SqlTracingDataSourcePostProcessor(ObjectProvider<SqlTracingListener> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name("banking")
+                .listener(listener.getObject())
+                .build();
+    }
+}
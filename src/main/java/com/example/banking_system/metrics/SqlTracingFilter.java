@@ -0,0 +1,80 @@
+package com.example.banking_system.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the statements and database time of each HTTP request.
+ *
+ * The totals go out as sqlCount and sqlTimeMs MDC fields on the per-request log
+ * line and, with response-headers on, as X-SQL-Count and X-SQL-Time-Ms response
+ * headers written just before the response commits. The headers are off by
+ * default since they show any client how long its requests spend in the
+ * database. Requests that exceed the statement budget, usually
+ * an N+1 over a lazy association, are logged at WARN.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "banking.sql-trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTracingFilter extends OncePerRequestFilter {
+
+    @Value("${banking.sql-trace.statement-budget:25}")
+    private int statementBudget;
+
+    @Value("${banking.sql-trace.response-headers:false}")
+    private boolean responseHeaders;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        SqlTrace trace = SqlTrace.start(request.getMethod() + " " + request.getRequestURI());
+        HttpServletResponse tracedResponse = responseHeaders ? new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                setHeader("X-SQL-Count", Integer.toString(trace.getStatements()));
+                setHeader("X-SQL-Time-Ms", Long.toString(trace.getMillis()));
+            }
+        } : response;
+        try {
+            filterChain.doFilter(request, tracedResponse);
+        } finally {
+            SqlTrace.end();
+            report(trace);
+        }
+    }
+
+    private void report(SqlTrace trace) {
+        boolean overBudget = trace.getStatements() > statementBudget;
+        if (!overBudget && !logger.isDebugEnabled()) {
+            return;
+        }
+        MDC.put("sqlCount", Integer.toString(trace.getStatements()));
+        MDC.put("sqlTimeMs", Long.toString(trace.getMillis()));
+        try {
+            if (overBudget) {
+                logger.warn(trace.getRequest() + " executed " + trace.getStatements() + " statements in "
+                        + trace.getMillis() + " ms, over the budget of " + statementBudget + " (possible N+1)");
+            } else {
+                logger.debug(trace.getRequest() + " executed " + trace.getStatements() + " statements in "
+                        + trace.getMillis() + " ms");
+            }
+        } finally {
+            MDC.remove("sqlCount");
+            MDC.remove("sqlTimeMs");
+        }
+    }
+}
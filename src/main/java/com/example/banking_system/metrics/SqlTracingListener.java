@@ -0,0 +1,70 @@
+package com.example.banking_system.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Adds every JDBC statement to the current request's SqlTrace and logs slow
+ * ones. Slow statements are logged with the types of their bind parameters,
+ * never the values, so account numbers and amounts stay out of the logs.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.sql-trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTracingListener implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTracingListener.class);
+    private static final String START_NANOS = "sqlTrace.startNanos";
+
+    @Value("${banking.sql-trace.slow-query-ms:200}")
+    private long slowQueryMs;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class);
+        SqlTrace trace = SqlTrace.current();
+        if (trace != null) {
+            // A batch is one round trip however many rows it carries
+            trace.record(execInfo.isBatch() ? 1 : queryInfoList.size(), elapsed);
+        }
+        if (elapsed >= slowQueryMs * 1_000_000 && logger.isWarnEnabled()) {
+            logger.warn("Slow query ({} ms{}{}): {}",
+                    elapsed / 1_000_000,
+                    execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+                    trace != null ? ", " + trace.getRequest() : "",
+                    queryInfoList.stream().map(SqlTracingListener::describe).collect(Collectors.joining("; ")));
+        }
+    }
+
+    private static String describe(QueryInfo query) {
+        List<List<ParameterSetOperation>> parameters = query.getParametersList();
+        if (parameters.isEmpty()) {
+            return query.getQuery();
+        }
+        return query.getQuery() + " " + parameters.get(0).stream()
+                .map(SqlTracingListener::shape)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String shape(ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        if (ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 || args[1] == null) {
+            return "null";
+        }
+        return args[1].getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.banking_system.metrics;
+
+import com.example.banking_system.exception.AccessDeniedException;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.exception.InsufficientFundsException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for TransactionService.
+ *
+ * banking.transactions times every operation, tagged by operation and outcome.
+ * When the operation runs in a transaction the timer is stopped after the
+ * transaction completes, so commit time is included and a posting that fails
+ * to commit is counted as FAILED. Postings also feed the amount distribution
+ * and the in-flight gauge.
+ */
+@Component
+public class TransactionMetrics {
+
+    public enum Operation {
+        DEPOSIT(true), WITHDRAW(true), TRANSFER(true), ACCOUNT_TRANSACTIONS(false), USER_TRANSACTIONS(false);
+
+        private final boolean posting;
+
+        Operation(boolean posting) {
+            this.posting = posting;
+        }
+
+        private String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    public enum Outcome {
+        COMPLETED, FAILED, INSUFFICIENT_FUNDS, INACTIVE, ACCESS_DENIED
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Operation, AtomicInteger> inFlight = new EnumMap<>(Operation.class);
+    private final Map<Operation, DistributionSummary> amounts = new EnumMap<>(Operation.class);
+
+    public TransactionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            if (!operation.posting) {
+                continue;
+            }
+            AtomicInteger counter = new AtomicInteger();
+            inFlight.put(operation, counter);
+            Gauge.builder("banking.transactions.in_flight", counter, AtomicInteger::get)
+                    .description("Postings currently being processed")
+                    .tag("operation", operation.tag())
+                    .register(registry);
+            amounts.put(operation, DistributionSummary.builder("banking.transactions.amount")
+                    .description("Amounts of completed postings")
+                    .tag("operation", operation.tag())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Times a posting and records its amount when it completes.
+     */
+    public <T> T recordPosting(Operation operation, BigDecimal amount, Supplier<T> work) {
+        AtomicInteger counter = inFlight.get(operation);
+        counter.incrementAndGet();
+        return record(operation, work, outcome -> {
+            counter.decrementAndGet();
+            if (outcome == Outcome.COMPLETED && amount != null) {
+                amounts.get(operation).record(amount.doubleValue());
+            }
+        });
+    }
+
+    /**
+     * Times a read.
+     */
+    public <T> T recordQuery(Operation operation, Supplier<T> work) {
+        return record(operation, work, outcome -> {
+        });
+    }
+
+    private <T> T record(Operation operation, Supplier<T> work, OutcomeListener listener) {
+        Timer.Sample sample = Timer.start(registry);
+        Outcome outcome = Outcome.COMPLETED;
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            outcome = classify(e);
+            throw e;
+        } finally {
+            Outcome result = outcome;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        // A rollback after the work returned means the commit itself failed
+                        stop(operation, sample, status == STATUS_COMMITTED || result != Outcome.COMPLETED
+                                ? result : Outcome.FAILED, listener);
+                    }
+                });
+            } else {
+                stop(operation, sample, result, listener);
+            }
+        }
+    }
+
+    private void stop(Operation operation, Timer.Sample sample, Outcome outcome, OutcomeListener listener) {
+        sample.stop(Timer.builder("banking.transactions")
+                .description("TransactionService operations by outcome")
+                .tag("operation", operation.tag())
+                .tag("outcome", outcome.name())
+                .publishPercentileHistogram()
+                .register(registry));
+        listener.onOutcome(outcome);
+    }
+
+    private static Outcome classify(RuntimeException e) {
+        if (e instanceof InsufficientFundsException) {
+            return Outcome.INSUFFICIENT_FUNDS;
+        }
+        if (e instanceof AccessDeniedException) {
+            return Outcome.ACCESS_DENIED;
+        }
+        if (e instanceof BankingException banking && "ACCOUNT_INACTIVE".equals(banking.getErrorCode())) {
+            return Outcome.INACTIVE;
+        }
+        return Outcome.FAILED;
+    }
+
+    @FunctionalInterface
+    private interface OutcomeListener {
+        void onOutcome(Outcome outcome);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("banking.JwtAuthentication")
+@Label("JWT Authentication")
+@Description("Parsing the bearer token, loading the user and validating the token")
+@Category({"Banking", "Security"})
+@StackTrace(false)
+public class AuthenticationEvent extends Event {
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Request URI")
+    String requestUri;
+
+    public void finish(String outcome, String requestUri) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            this.requestUri = requestUri;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("banking.PostingBalanceCheck")
+@Label("Posting Balance Check")
+@Description("Checking the source balance covers the amount")
+public class PostingBalanceCheckEvent extends PostingEvent {
+}
@@ -0,0 +1,48 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+@Name("banking.PostingCommit")
+@Label("Posting Commit")
+@Description("Flushing and committing the posting's transaction")
+public class PostingCommitEvent extends PostingEvent {
+
+    @Label("Committed")
+    boolean committed;
+
+    /**
+     * Records the commit of the current transaction, from just before the flush
+     * until the database has acknowledged the commit or rollback.
+     */
+    public static void onCommit(String operation, Long accountId, Long counterpartyAccountId, BigDecimal amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PostingCommitEvent event = new PostingCommitEvent();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                event.begin();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // Rolled back before commit was attempted; there is no commit phase to record
+                if (!committing) {
+                    return;
+                }
+                event.committed = status == STATUS_COMMITTED;
+                event.finish(operation, accountId, counterpartyAccountId, amount);
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.math.BigDecimal;
+
+/**
+ * Base of the JFR events covering the phases of a posting.
+ *
+ * Callers begin the event before the phase and finish it after. The fields are
+ * only filled in when the recording wants the event, so with no recording
+ * running a phase costs little more than the allocation. Amounts are recorded
+ * as an order-of-magnitude bucket rather than the exact value.
+ */
+@Category({"Banking", "Posting"})
+@StackTrace(false)
+public abstract class PostingEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Account Id")
+    long accountId;
+
+    @Label("Counterparty Account Id")
+    long counterpartyAccountId;
+
+    @Label("Amount Bucket")
+    String amountBucket;
+
+    public static <E extends PostingEvent> E begin(E event) {
+        event.begin();
+        return event;
+    }
+
+    public void finish(String operation, Long accountId, Long counterpartyAccountId, BigDecimal amount) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.accountId = accountId != null ? accountId : 0;
+            this.counterpartyAccountId = counterpartyAccountId != null ? counterpartyAccountId : 0;
+            this.amountBucket = bucket(amount);
+            commit();
+        }
+    }
+
+    static String bucket(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        if (amount.compareTo(BigDecimal.ONE) < 0) {
+            return "<1";
+        }
+        // Number of digits before the decimal point: 1-9 -> 1, 10-99 -> 2, ...
+        int digits = amount.precision() - amount.scale();
+        if (digits > 7) {
+            return ">=10M";
+        }
+        return label(digits - 1) + "-" + label(digits);
+    }
+
+    private static String label(int exponent) {
+        return switch (exponent) {
+            case 0 -> "1";
+            case 1 -> "10";
+            case 2 -> "100";
+            case 3 -> "1k";
+            case 4 -> "10k";
+            case 5 -> "100k";
+            case 6 -> "1M";
+            default -> "10M";
+        };
+    }
+}
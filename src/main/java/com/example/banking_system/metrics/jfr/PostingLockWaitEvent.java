@@ -0,0 +1,11 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("banking.PostingLockWait")
+@Label("Posting Lock Wait")
+@Description("Waiting for the row locks on the accounts involved")
+public class PostingLockWaitEvent extends PostingEvent {
+}
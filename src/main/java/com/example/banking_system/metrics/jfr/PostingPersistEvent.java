@@ -0,0 +1,11 @@
+package com.example.banking_system.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("banking.PostingPersist")
+@Label("Posting Persist")
+@Description("Saving the balances and the transaction row")
+public class PostingPersistEvent extends PostingEvent {
+}
@@ -2,7 +2,9 @@ package com.example.banking_system.repository;
 
 import com.example.banking_system.entity.Account;
 import com.example.banking_system.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +17,39 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     Optional<Account> findByAccountNumber(String accountNumber);
     
+    // SELECT ... FOR UPDATE: the row stays locked until the posting transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+    
+    // Everything about an account except its balance, which changes with every posting; scalar columns only,
+    // so it neither loads nor locks the account
+    @Query("SELECT a.id AS id, a.user.id AS ownerId, a.accountType AS accountType, a.isActive AS active, " +
+           "a.hotAccount AS hotAccount, a.stripeCount AS stripeCount " +
+           "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountMetadata> findMetadata(@Param("accountNumber") String accountNumber);
+    
+    interface AccountMetadata {
+        Long getId();
+        
+        Long getOwnerId();
+        
+        Account.AccountType getAccountType();
+        
+        Boolean getActive();
+        
+        Boolean getHotAccount();
+        
+        Integer getStripeCount();
+    }
+    
+    @Query("SELECT COUNT(a) FROM Account a WHERE a.hotAccount = true OR a.stripeCount IS NOT NULL")
+    long countHotOrStripedAccounts();
+    
     List<Account> findByUserId(Long userId);
     
     List<Account> findByUser(User user);
@@ -0,0 +1,56 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.AccountStripe;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Long> {
+    
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountStripe s WHERE s.accountId = :accountId")
+    BigDecimal sumBalanceByAccountId(@Param("accountId") Long accountId);
+    
+    // A single UPDATE: the stripe is locked by the write itself, no read first
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = s.balance + :amount " +
+           "WHERE s.accountId = :accountId AND s.stripeIndex = :stripeIndex")
+    int addToStripe(@Param("accountId") Long accountId,
+                    @Param("stripeIndex") Integer stripeIndex,
+                    @Param("amount") BigDecimal amount);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountStripe s WHERE s.accountId = :accountId AND s.stripeIndex = :stripeIndex")
+    Optional<AccountStripe> findStripeForUpdate(@Param("accountId") Long accountId,
+                                                @Param("stripeIndex") Integer stripeIndex);
+    
+    // Lock timeout -2 is SKIP LOCKED: stripes other postings hold are left out rather than waited for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM AccountStripe s WHERE s.accountId = :accountId AND s.stripeIndex <> :stripeIndex " +
+           "ORDER BY s.stripeIndex")
+    List<AccountStripe> findOtherStripesSkipLocked(@Param("accountId") Long accountId,
+                                                   @Param("stripeIndex") Integer stripeIndex);
+    
+    // Lock timeout 0 is NOWAIT: a stripe another posting holds fails the query instead of being waited for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("SELECT s FROM AccountStripe s WHERE s.accountId = :accountId AND s.stripeIndex <> :stripeIndex " +
+           "ORDER BY s.stripeIndex")
+    List<AccountStripe> findOtherStripesNoWait(@Param("accountId") Long accountId,
+                                               @Param("stripeIndex") Integer stripeIndex);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountStripe s WHERE s.accountId = :accountId ORDER BY s.stripeIndex")
+    List<AccountStripe> findAllForUpdate(@Param("accountId") Long accountId);
+}
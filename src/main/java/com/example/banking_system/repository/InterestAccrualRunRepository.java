@@ -0,0 +1,21 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.InterestAccrualRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InterestAccrualRunRepository extends JpaRepository<InterestAccrualRun, Long> {
+
+    Optional<InterestAccrualRun> findByAccrualDateAndShard(LocalDate accrualDate, Integer shard);
+
+    List<InterestAccrualRun> findByStatusOrderByAccrualDateAsc(InterestAccrualRun.Status status);
+
+    Optional<InterestAccrualRun> findTopByStatusOrderByAccrualDateDesc(InterestAccrualRun.Status status);
+
+    List<InterestAccrualRun> findTop30ByOrderByAccrualDateDescShardAsc();
+}
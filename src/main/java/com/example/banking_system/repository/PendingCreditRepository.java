@@ -0,0 +1,23 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.PendingCredit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface PendingCreditRepository extends JpaRepository<PendingCredit, Long> {
+    
+    @Query("SELECT DISTINCT p.accountId FROM PendingCredit p")
+    List<Long> findAccountIdsWithPendingCredits();
+    
+    List<PendingCredit> findByAccountIdOrderByIdAsc(Long accountId, Pageable pageable);
+    
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM PendingCredit p WHERE p.accountId = :accountId")
+    BigDecimal sumAmountByAccountId(@Param("accountId") Long accountId);
+}
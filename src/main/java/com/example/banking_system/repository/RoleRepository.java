@@ -1,7 +1,9 @@
 package com.example.banking_system.repository;
 
 import com.example.banking_system.entity.Role;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,6 +11,8 @@ import java.util.Optional;
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
     
+    // Answered from the query and entity caches after the first call
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Role> findByName(Role.RoleName name);
     
     boolean existsByName(Role.RoleName name);
@@ -0,0 +1,72 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.StandingOrder;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, Long> {
+
+    // Lock timeout -2 is SKIP LOCKED: orders another node is claiming are left to it rather than waited for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM StandingOrder o WHERE o.status = :status AND o.nextRunAt <= :now ORDER BY o.nextRunAt")
+    List<StandingOrder> findDueSkipLocked(@Param("status") StandingOrder.Status status,
+                                         @Param("now") LocalDateTime now,
+                                         Pageable pageable);
+
+    List<StandingOrder> findByOwnerIdOrderByIdAsc(Long ownerId);
+
+    // Matches only while the occurrence is still the one that was claimed, so it is moved past exactly once
+    @Modifying
+    @Query("UPDATE StandingOrder o SET o.occurrence = :occurrence + 1, o.nextDueDate = :nextDueDate, " +
+           "o.nextRunAt = :nextRunAt, o.status = :status, o.attempts = 0, o.lastError = :lastError, " +
+           "o.lastRunAt = :now WHERE o.id = :id AND o.occurrence = :occurrence AND o.status = :activeStatus")
+    int advance(@Param("id") Long id,
+                @Param("occurrence") Integer occurrence,
+                @Param("nextDueDate") LocalDate nextDueDate,
+                @Param("nextRunAt") LocalDateTime nextRunAt,
+                @Param("status") StandingOrder.Status status,
+                @Param("activeStatus") StandingOrder.Status activeStatus,
+                @Param("lastError") String lastError,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StandingOrder o SET o.attempts = o.attempts + 1, o.nextRunAt = :nextRunAt, " +
+           "o.lastError = :lastError, o.lastRunAt = :now " +
+           "WHERE o.id = :id AND o.occurrence = :occurrence AND o.attempts = :attempts AND o.status = :activeStatus")
+    int retryLater(@Param("id") Long id,
+                   @Param("occurrence") Integer occurrence,
+                   @Param("attempts") Integer attempts,
+                   @Param("nextRunAt") LocalDateTime nextRunAt,
+                   @Param("activeStatus") StandingOrder.Status activeStatus,
+                   @Param("lastError") String lastError,
+                   @Param("now") LocalDateTime now);
+
+    // Undoes an advance whose cross-shard transfer then failed
+    @Modifying
+    @Query("UPDATE StandingOrder o SET o.occurrence = :occurrence, o.nextDueDate = :dueDate, o.status = :activeStatus " +
+           "WHERE o.id = :id AND o.occurrence = :occurrence + 1")
+    int reopen(@Param("id") Long id,
+               @Param("occurrence") Integer occurrence,
+               @Param("dueDate") LocalDate dueDate,
+               @Param("activeStatus") StandingOrder.Status activeStatus);
+
+    @Modifying
+    @Query("UPDATE StandingOrder o SET o.status = :status WHERE o.id = :id AND o.status = :activeStatus")
+    int cancel(@Param("id") Long id,
+               @Param("status") StandingOrder.Status status,
+               @Param("activeStatus") StandingOrder.Status activeStatus);
+}
@@ -0,0 +1,17 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.TransactionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, Long> {
+    
+    Optional<TransactionArchive> findByPeriodStart(LocalDate periodStart);
+    
+    List<TransactionArchive> findAllByOrderByPeriodStartDesc();
+}
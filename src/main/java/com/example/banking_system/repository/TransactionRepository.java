@@ -2,6 +2,7 @@ package com.example.banking_system.repository;
 
 import com.example.banking_system.entity.Transaction;
 import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -18,8 +19,46 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     Optional<Transaction> findByReferenceNumber(String referenceNumber);
     
+    Optional<Transaction> findByReferenceNumberAndTimestampBetween(
+            String referenceNumber, LocalDateTime startDate, LocalDateTime endDate);
+    
+    /**
+     * Looks a reference up within a day of the time it encodes, so a partitioned
+     * table only scans the partitions around that time instead of all of them.
+     * Falls back to the unbounded lookup for references in another format.
+     */
+    default Optional<Transaction> findByReferenceNumberPruned(String referenceNumber) {
+        return Transaction.referenceTimestamp(referenceNumber)
+                .map(created -> findByReferenceNumberAndTimestampBetween(
+                        referenceNumber, created.minusDays(1), created.plusDays(1)))
+                .orElseGet(() -> findByReferenceNumber(referenceNumber));
+    }
+    
+    // Outgoing legs of cross-shard transfers that never reached a final status
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status " +
+           "AND t.targetAccount IS NULL AND t.counterpartyAccountNumber IS NOT NULL " +
+           "AND t.timestamp < :before")
+    List<Transaction> findPendingOutgoingLegs(
+            @Param("status") Transaction.TransactionStatus status,
+            @Param("before") LocalDateTime before);
+    
     List<Transaction> findBySourceAccountIdOrTargetAccountId(Long sourceAccountId, Long targetAccountId);
     
+    @Query("SELECT t FROM Transaction t WHERE " +
+           "(t.sourceAccount.id = :accountId OR t.targetAccount.id = :accountId) " +
+           "AND t.timestamp >= :since")
+    List<Transaction> findAccountTransactionsSince(@Param("accountId") Long accountId,
+                                                  @Param("since") LocalDateTime since);
+    
+    /**
+     * Every transaction of the account. Nothing is posted to an account before
+     * it exists, so the scan starts at its creation and a partitioned table
+     * skips the older partitions.
+     */
+    default List<Transaction> findAccountHistory(Account account) {
+        return findAccountTransactionsSince(account.getId(), historyStart(account.getCreatedAt()));
+    }
+    
     Page<Transaction> findBySourceAccountOrTargetAccountOrderByTimestampDesc(
             Account sourceAccount, Account targetAccount, Pageable pageable);
     
@@ -32,10 +71,25 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "t.sourceAccount.user.id = :userId OR t.targetAccount.user.id = :userId " +
+    // Outer joins: deposits, withdrawals and each leg of a cross-shard transfer have only one local account
+    @Query("SELECT t FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.targetAccount d WHERE " +
+           "(s.user.id = :userId OR d.user.id = :userId) AND t.timestamp >= :since " +
            "ORDER BY t.timestamp DESC")
-    Page<Transaction> findUserTransactions(@Param("userId") Long userId, Pageable pageable);
+    Page<Transaction> findUserTransactions(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                           Pageable pageable);
+    
+    /**
+     * A page of the user's transactions, scanning only the partitions since the
+     * user was created, before any of their accounts.
+     */
+    default Page<Transaction> findUserHistory(User user, Pageable pageable) {
+        return findUserTransactions(user.getId(), historyStart(user.getCreatedAt()), pageable);
+    }
+    
+    // A day early: rows are stamped by whichever node posts them, and node clocks differ slightly
+    private static LocalDateTime historyStart(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.minusDays(1) : LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
     
     List<Transaction> findByTimestampBetweenOrderByTimestampDesc(
             LocalDateTime startDate, LocalDateTime endDate);
@@ -0,0 +1,58 @@
+package com.example.banking_system.repository;
+
+import com.example.banking_system.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Predicates for searching transactions. Each compares a bare column with
+ * equality, a range or a LIKE pattern so an index on that column can serve
+ * it; none wraps a column in a function other than the LOWER(description)
+ * that db/postgresql/add-transaction-search-indexes.sql indexes.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> timestampBetween(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("timestamp"), from),
+                cb.lessThan(root.get("timestamp"), to));
+    }
+
+    /**
+     * Rows after the given one in newest-first order, for keyset paging.
+     */
+    public static Specification<Transaction> before(LocalDateTime timestamp, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("timestamp"), timestamp),
+                cb.and(cb.equal(root.get("timestamp"), timestamp), cb.lessThan(root.get("id"), id)));
+    }
+
+    public static Specification<Transaction> typeIn(Collection<Transaction.TransactionType> types) {
+        return (root, query, cb) -> root.get("type").in(types);
+    }
+
+    public static Specification<Transaction> statusIn(Collection<Transaction.TransactionStatus> statuses) {
+        return (root, query, cb) -> root.get("status").in(statuses);
+    }
+
+    public static Specification<Transaction> amountAtLeast(BigDecimal amount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), amount);
+    }
+
+    public static Specification<Transaction> amountAtMost(BigDecimal amount) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), amount);
+    }
+
+    public static Specification<Transaction> descriptionContains(String text) {
+        String pattern = "%" + text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), pattern, '\\');
+    }
+}
@@ -2,8 +2,11 @@ package com.example.banking_system.repository;
 
 import com.example.banking_system.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +19,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+    
+    // One round trip for both uniqueness checks of a new user
+    @Query("SELECT u.username AS username, u.email AS email FROM User u " +
+           "WHERE u.username = :username OR u.email = :email")
+    List<UserIdentity> findIdentities(@Param("username") String username, @Param("email") String email);
+    
+    interface UserIdentity {
+        String getUsername();
+        
+        String getEmail();
+    }
 }
\ No newline at end of file
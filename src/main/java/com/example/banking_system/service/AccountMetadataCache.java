@@ -0,0 +1,96 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.exception.AccountNotFoundException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Read-through cache of what rarely changes about an account, keyed by
+ * account number, in front of the account's shard.
+ *
+ * Balances are never cached: they change with every posting and are always
+ * read from the row. Owners never change, so ownership checks are safe to
+ * answer from here. The active flag and the posting mode can go stale: this
+ * node evicts an account when it is deactivated, deleted, made hot or
+ * striped here, other nodes only once ttl-seconds pass. So anything that
+ * moves money checks the flag again on the row it posts to and takes the
+ * mode from the row once it has locked it; a posting that skipped the row
+ * lock on a stale mode finds the stripes gone and fails with a retryable 409
+ * that evicts the entry. Missing accounts are not cached.
+ */
+@Component
+public class AccountMetadataCache {
+
+    public record AccountMetadata(Long id, String accountNumber, Long ownerId, Account.AccountType accountType,
+                                  boolean active, Account.PostingMode postingMode) {
+    }
+
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final Cache<String, AccountMetadata> cache;
+    private final boolean enabled;
+
+    public AccountMetadataCache(AccountRepository accountRepository, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                                @Value("${banking.accounts.metadata-cache.enabled:true}") boolean enabled,
+                                @Value("${banking.accounts.metadata-cache.maximum-size:100000}") long maximumSize,
+                                @Value("${banking.accounts.metadata-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "accountMetadata");
+    }
+
+    /**
+     * Metadata of the account, read from its shard in a transaction of its own
+     * on a miss.
+     */
+    public AccountMetadata get(String accountNumber) {
+        AccountMetadata metadata = enabled ? cache.get(accountNumber, this::load) : load(accountNumber);
+        if (metadata == null) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        return metadata;
+    }
+
+    /**
+     * Evicts the account once the current transaction ends, or right away
+     * outside one, so a concurrent miss cannot reload the old row after it.
+     */
+    public void evict(String accountNumber) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(accountNumber);
+                }
+            });
+        } else {
+            cache.invalidate(accountNumber);
+        }
+    }
+
+    private AccountMetadata load(String accountNumber) {
+        return shardRouter.onShard(shardRouter.shardForAccountNumber(accountNumber), true,
+                () -> accountRepository.findMetadata(accountNumber)
+                        .map(row -> new AccountMetadata(row.getId(), accountNumber, row.getOwnerId(),
+                                row.getAccountType(), Boolean.TRUE.equals(row.getActive()),
+                                Account.PostingMode.of(row.getHotAccount(), row.getStripeCount())))
+                        .orElse(null));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.banking_system.service;
 
 import com.example.banking_system.dto.AccountCreateRequest;
 import com.example.banking_system.dto.AccountResponse;
+import com.example.banking_system.engine.PostingEngine;
 import com.example.banking_system.entity.Account;
 import com.example.banking_system.entity.User;
 import com.example.banking_system.exception.AccessDeniedException;
@@ -10,13 +11,17 @@ import com.example.banking_system.exception.BankingException;
 import com.example.banking_system.exception.UserNotFoundException;
 import com.example.banking_system.repository.AccountRepository;
 import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,13 +30,30 @@ public class AccountService {
     
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final StripedBalanceService stripedBalanceService;
+    private final AccountMetadataCache metadataCache;
+    private final HotAccountService hotAccountService;
+    // Present only with banking.engine.enabled, which then owns the current balances
+    private final PostingEngine postingEngine;
     
-    public AccountService(AccountRepository accountRepository, UserRepository userRepository) {
+    public AccountService(AccountRepository accountRepository, UserRepository userRepository, ShardRouter shardRouter,
+                          StripedBalanceService stripedBalanceService, AccountMetadataCache metadataCache,
+                          HotAccountService hotAccountService, ObjectProvider<PostingEngine> postingEngine) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.stripedBalanceService = stripedBalanceService;
+        this.metadataCache = metadataCache;
+        this.hotAccountService = hotAccountService;
+        this.postingEngine = postingEngine.getIfAvailable();
     }
     
     public AccountResponse createAccount(AccountCreateRequest request) {
+        // The number decides the shard, so it is chosen before anything touches the database
+        String accountNumber = Account.newAccountNumber();
+        shardRouter.bindAccountNumber(accountNumber);
+        
         User currentUser = getCurrentUser();
         User targetUser;
 
@@ -46,13 +68,18 @@ public class AccountService {
             targetUser = currentUser;
         }
         
-        long accountCount = accountRepository.countActiveAccountsByUserId(targetUser.getId());
+        Long targetUserId = targetUser.getId();
+        long accountCount = shardRouter.onEveryShard(() -> accountRepository.countActiveAccountsByUserId(targetUserId))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
         if (accountCount >= 3) {
             throw new RuntimeException("User cannot have more than 3 active accounts");
         }
         
         // Create new account
         Account account = new Account();
+        account.setAccountNumber(accountNumber);
         account.setUser(targetUser);
         account.setAccountType(request.getAccountType());
         account.setBalance(BigDecimal.ZERO);
@@ -62,7 +89,9 @@ public class AccountService {
         return new AccountResponse(savedAccount);
     }
     
+    @Transactional(readOnly = true)
     public AccountResponse getAccountById(Long accountId) {
+        shardRouter.bindAccountId(accountId);
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
         
@@ -72,9 +101,10 @@ public class AccountService {
             throw new RuntimeException("Access denied: You can only view your own accounts");
         }
         
-        return new AccountResponse(account);
+        return toResponse(account);
     }
     
+    @Transactional(readOnly = true)
     public List<AccountResponse> getUserAccounts(Long userId) {
         // Check if current user is requesting their own accounts or is admin
         User currentUser = getCurrentUser();
@@ -85,22 +115,18 @@ public class AccountService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        List<Account> accounts = accountRepository.findActiveAccountsByUserId(userId);
-        return accounts.stream()
-                .map(AccountResponse::new)
-                .collect(Collectors.toList());
+        return findActiveAccountsOnEveryShard(userId);
     }
     
+    @Transactional(readOnly = true)
     public List<AccountResponse> getMyAccounts() {
         User currentUser = getCurrentUser();
-        List<Account> accounts = accountRepository.findActiveAccountsByUserId(currentUser.getId());
-        return accounts.stream()
-                .map(AccountResponse::new)
-                .collect(Collectors.toList());
+        return findActiveAccountsOnEveryShard(currentUser.getId());
     }
     
     public AccountResponse deactivateAccount(Long accountId) {
-        Account account = accountRepository.findById(accountId)
+        shardRouter.bindAccountId(accountId);
+        Account account = accountRepository.findByIdForUpdate(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
         
         // Check if current user owns this account or is admin
@@ -108,14 +134,16 @@ public class AccountService {
         if (!account.getUser().getId().equals(currentUser.getId()) && !isAdmin()) {
             throw new RuntimeException("Access denied: You can only deactivate your own accounts");
         }
+        foldPendingCredits(account);
         
         // Business rule: Cannot deactivate account with non-zero balance
-        if (account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
+        if (currentBalance(account).compareTo(BigDecimal.ZERO) != 0) {
             throw new RuntimeException("Cannot deactivate account with non-zero balance");
         }
         
         account.setIsActive(false);
         Account savedAccount = accountRepository.save(account);
+        metadataCache.evict(account.getAccountNumber());
         return new AccountResponse(savedAccount);
     }
 
@@ -123,15 +151,23 @@ public class AccountService {
         if (!isAdmin()) {
             throw AccessDeniedException.adminRequired();
         }
+        // Replication of the account's last postings may still be queued behind the ring and would fail on its row
+        if (postingEngine != null) {
+            throw new BankingException("Accounts cannot be deleted while the posting engine is on; deactivate it instead",
+                    "ENGINE_ENABLED", 409);
+        }
 
-        Account account = accountRepository.findById(accountId)
+        shardRouter.bindAccountId(accountId);
+        Account account = accountRepository.findByIdForUpdate(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
+        foldPendingCredits(account);
 
-        if (account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
+        if (currentBalance(account).compareTo(BigDecimal.ZERO) != 0) {
             throw new RuntimeException("Cannot delete account with non-zero balance");
         }
 
         accountRepository.delete(account);
+        metadataCache.evict(account.getAccountNumber());
     }
     
     public Account findByAccountNumber(String accountNumber) {
@@ -139,19 +175,81 @@ public class AccountService {
                 .orElseThrow(() -> new RuntimeException("Account not found with number: " + accountNumber));
     }
     
+    /**
+     * Owner, type, active flag and posting mode of the account, usually without
+     * a query. The flag and the mode may lag a change on another node; check
+     * the row before moving money.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public AccountMetadataCache.AccountMetadata getMetadata(String accountNumber) {
+        return metadataCache.get(accountNumber);
+    }
+    
+    /**
+     * Loads the account and locks its row for the rest of the current transaction.
+     */
+    public Account findByAccountNumberForUpdate(String accountNumber) {
+        return accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found with number: " + accountNumber));
+    }
+    
+    @Transactional(readOnly = true)
     public List<AccountResponse> getAllAccounts() {
         // Admin and teller can see all accounts
-        List<Account> accounts = accountRepository.findAll();
-        return accounts.stream()
-                .map(AccountResponse::new)
+        return shardRouter.onEveryShard(() -> accountRepository.findAll().stream()
+                        .map(this::toResponse)
+                        .toList())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+    
+    private List<AccountResponse> findActiveAccountsOnEveryShard(Long userId) {
+        // Responses are mapped per shard while the owning user can still be loaded
+        return shardRouter.onEveryShard(() -> accountRepository.findActiveAccountsByUserId(userId).stream()
+                        .map(this::toResponse)
+                        .toList())
+                .stream()
+                .flatMap(List::stream)
                 .collect(Collectors.toList());
     }
     
+    // Striped accounts keep their balance in the stripes and hot accounts partly in pending credits
+    private AccountResponse toResponse(Account account) {
+        AccountResponse response = new AccountResponse(account);
+        if (postingEngine != null || account.getPostingMode() != Account.PostingMode.STANDARD) {
+            response.setBalance(currentBalance(account));
+        }
+        return response;
+    }
+    
+    // The account row lags the posting engine until replication catches up
+    private BigDecimal currentBalance(Account account) {
+        if (postingEngine != null) {
+            return postingEngine.balanceOf(account);
+        }
+        BigDecimal balance = stripedBalanceService.balanceOf(account);
+        return account.getPostingMode() == Account.PostingMode.HOT
+                ? balance.add(hotAccountService.pendingCredits(account.getId()))
+                : balance;
+    }
+    
+    // Credits pending without a foreign key must be in the balance before it is checked and the account closed
+    private void foldPendingCredits(Account lockedAccount) {
+        if (postingEngine == null) {
+            hotAccountService.foldPendingCredits(lockedAccount);
+        }
+    }
+    
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isEmpty() && shardRouter.replicateUser(username)) {
+            // Newly registered users may not have reached this shard yet
+            user = userRepository.findByUsername(username);
+        }
+        return user.orElseThrow(() -> new RuntimeException("Current user not found"));
     }
     
     private boolean isAdmin() {
@@ -0,0 +1,177 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.ActivityUpdate;
+import com.example.banking_system.event.TransactionCompletedEvent;
+import com.example.banking_system.exception.BankingException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pub/sub that fans committed postings out to the owners' open
+ * Server-Sent Events connections.
+ *
+ * Every connection gets its own bounded buffer drained by a dedicated virtual
+ * thread, so an idle listener is just a parked virtual thread and a slow one can
+ * never stall the publisher: once its buffer is full the oldest update is
+ * dropped and the client is told to resync from the REST endpoints.
+ */
+@Service
+public class ActivityStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityStreamService.class);
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ThreadFactory senderThreads = Thread.ofVirtual().name("activity-stream-", 0).factory();
+
+    @Value("${banking.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${banking.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${banking.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${banking.stream.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(userId, emitter);
+        // Counted and added under the map's bin lock, so concurrent subscribes cannot pass the limit
+        // together and a set that remove() has just unmapped is never added to
+        subscriptions.compute(userId, (id, userSubscriptions) -> {
+            Set<Subscription> current = userSubscriptions != null ? userSubscriptions : ConcurrentHashMap.newKeySet();
+            if (current.size() >= maxConnectionsPerUser) {
+                throw new BankingException("Too many open activity streams for this user", "STREAM_LIMIT_EXCEEDED", 429);
+            }
+            current.add(subscription);
+            return current;
+        });
+
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+
+        senderThreads.newThread(subscription::run).start();
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionCompleted(TransactionCompletedEvent event) {
+        // A transfer between two accounts of the same user must reach that user once
+        Map<Long, List<ActivityUpdate.AccountBalance>> balancesByUser = new LinkedHashMap<>();
+        for (TransactionCompletedEvent.AccountBalanceChange change : event.getBalanceChanges()) {
+            balancesByUser.computeIfAbsent(change.getUserId(), id -> new ArrayList<>()).add(change.getBalance());
+        }
+
+        balancesByUser.forEach((userId, balances) -> {
+            Set<Subscription> userSubscriptions = subscriptions.get(userId);
+            if (userSubscriptions == null || userSubscriptions.isEmpty()) {
+                return;
+            }
+            ActivityUpdate update = new ActivityUpdate(event.getTransaction(), balances);
+            userSubscriptions.forEach(subscription -> subscription.offer(update));
+        });
+    }
+
+    public int getOpenConnectionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+            subscription.emitter.complete();
+            subscription.close();
+        }));
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+
+    private final class Subscription {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<ActivityUpdate> buffer;
+        private final AtomicInteger dropped = new AtomicInteger();
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private volatile Thread sender;
+
+        private Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(ActivityUpdate update) {
+            while (!buffer.offer(update)) {
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        private void run() {
+            sender = Thread.currentThread();
+            try {
+                emitter.send(SseEmitter.event().name("connected").data("ok"));
+                while (open.get()) {
+                    ActivityUpdate update = buffer.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    int lost = dropped.getAndSet(0);
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name("resync").data(lost));
+                    }
+                    if (update != null) {
+                        emitter.send(SseEmitter.event().name("activity").data(update, MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Activity stream for user {} closed: {}", userId, e.getMessage());
+                emitter.completeWithError(e);
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            if (open.compareAndSet(true, false)) {
+                remove(this);
+                Thread thread = sender;
+                if (thread != null && thread != Thread.currentThread()) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.example.banking_system.exception.UserNotFoundException;
 import com.example.banking_system.repository.RoleRepository;
 import com.example.banking_system.repository.UserRepository;
 import com.example.banking_system.security.JwtUtil;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -18,6 +19,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 @Service
@@ -29,17 +32,20 @@ public class AuthService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final UserIdentityFilter userIdentityFilter;
     
     public AuthService(AuthenticationManager authenticationManager,
                       UserRepository userRepository,
                       RoleRepository roleRepository,
                       PasswordEncoder passwordEncoder,
-                      JwtUtil jwtUtil) {
+                      JwtUtil jwtUtil,
+                      UserIdentityFilter userIdentityFilter) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.userIdentityFilter = userIdentityFilter;
     }
     
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
@@ -58,15 +64,7 @@ public class AuthService {
     }
     
     public User registerUser(RegisterRequest registerRequest) {
-        // Check if username exists
-        if (userRepository.existsByUsername(registerRequest.getUsername())) {
-            throw UserAlreadyExistsException.username(registerRequest.getUsername());
-        }
-        
-        // Check if email exists
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            throw UserAlreadyExistsException.email(registerRequest.getEmail());
-        }
+        checkAvailable(registerRequest.getUsername(), registerRequest.getEmail());
         
         // Create new user - PUBLIC REGISTRATION ONLY ALLOWS CUSTOMER ROLE
         User user = new User();
@@ -84,20 +82,12 @@ public class AuthService {
         
         user.setRoles(Set.of(customerRole));
         
-        return userRepository.save(user);
+        return saveNewUser(user);
     }
     
     // Admin-only method to create admin/teller users
     public User createAdminUser(RegisterRequest registerRequest, Role.RoleName roleName) {
-        // Check if username exists
-        if (userRepository.existsByUsername(registerRequest.getUsername())) {
-            throw UserAlreadyExistsException.username(registerRequest.getUsername());
-        }
-        
-        // Check if email exists
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            throw UserAlreadyExistsException.email(registerRequest.getEmail());
-        }
+        checkAvailable(registerRequest.getUsername(), registerRequest.getEmail());
         
         // Create admin/teller user
         User user = new User();
@@ -115,14 +105,44 @@ public class AuthService {
         
         user.setRoles(Set.of(role));
         
-        return userRepository.save(user);
+        return saveNewUser(user);
     }
     
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return userIdentityFilter.mightContainUsername(username) && userRepository.existsByUsername(username);
     }
     
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return userIdentityFilter.mightContainEmail(email) && userRepository.existsByEmail(email);
+    }
+    
+    // Names the filter has certainly not seen skip the query; the unique constraints cover the rest
+    private void checkAvailable(String username, String email) {
+        if (!userIdentityFilter.mightContainEither(username, email)) {
+            return;
+        }
+        List<UserRepository.UserIdentity> taken = userRepository.findIdentities(username, email);
+        if (taken.stream().anyMatch(identity -> identity.getUsername().equals(username))) {
+            throw UserAlreadyExistsException.username(username);
+        }
+        if (!taken.isEmpty()) {
+            throw UserAlreadyExistsException.email(email);
+        }
+    }
+    
+    // Flushed here so a name taken since the check fails with the same error as the check
+    private User saveNewUser(User user) {
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Both H2 ("USERS(EMAIL ...") and PostgreSQL ("Key (email)=...") name the violated column this way
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            throw cause.contains("(email")
+                    ? UserAlreadyExistsException.email(user.getEmail())
+                    : UserAlreadyExistsException.username(user.getUsername());
+        }
+        userIdentityFilter.add(saved.getUsername(), saved.getEmail());
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,613 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.RegisterRequest;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Role;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.RoleRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk onboarding of customers, and optionally one account each, from a CSV
+ * file with a header row, for migrations too large for registration.
+ *
+ * The file is read as a stream and handled in chunks of chunk-size rows.
+ * Each chunk is checked for taken usernames and emails with one IN query
+ * each, has its plain-text passwords hashed on a pool of hash-threads, and
+ * is inserted with JDBC batches: users and their CUSTOMER role on shard 0,
+ * then accounts and opening-balance deposits on their own shards. A batch
+ * that fails is retried row by row, so a bad row is reported with its line
+ * number and the rest of the file still goes in.
+ *
+ * Columns, in any order: username and email are required; password or
+ * password_hash (an existing BCrypt hash, which skips the expensive hashing);
+ * first_name, last_name, phone_number; account_type to open an account, with
+ * an optional initial_balance. Quoted fields may contain commas but not line
+ * breaks. Each row is held to the same constraints as a registration
+ * (RegisterRequest), so first and last name are required too; a row that
+ * breaks any is reported with all of its messages.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportService.class);
+
+    private static final String FIND_USERNAMES = "SELECT username FROM users WHERE username IN (:values)";
+    private static final String FIND_EMAILS = "SELECT email FROM users WHERE email IN (:values)";
+    private static final String INSERT_USER = "INSERT INTO users (username, password, email, first_name, last_name, " +
+            "phone_number, is_enabled, created_at, updated_at) " +
+            "VALUES (:username, :password, :email, :firstName, :lastName, :phoneNumber, TRUE, :now, :now)";
+    private static final String FIND_USER_IDS = "SELECT id, username FROM users WHERE username IN (:values)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (:userId, :roleId)";
+    private static final String INSERT_ACCOUNT = "INSERT INTO accounts (account_number, balance, account_type, user_id, " +
+            "created_at, updated_at, is_active, hot_account) " +
+            "VALUES (:accountNumber, :balance, :accountType, :userId, :now, :now, TRUE, FALSE)";
+    private static final String FIND_ACCOUNT_IDS = "SELECT id, account_number FROM accounts WHERE account_number IN (:values)";
+    private static final String INSERT_OPENING_BALANCE = "INSERT INTO transactions (amount, type, target_account_id, " +
+            "description, reference_number, timestamp, status) " +
+            "VALUES (:amount, 'DEPOSIT', :accountId, 'Opening balance', :referenceNumber, :now, 'COMPLETED')";
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final List<String> REQUIRED_COLUMNS = List.of("username", "email");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ShardRouter shardRouter;
+    private final UserIdentityFilter userIdentityFilter;
+    private final Validator validator;
+    private final Counter importedCounter;
+    private final Counter failedCounter;
+    // Running imports and the most recent finished ones, newest first
+    private final Deque<ImportJob> jobs = new ConcurrentLinkedDeque<>();
+
+    @Value("${banking.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${banking.import.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${banking.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${banking.import.retained-reports:20}")
+    private int retainedReports;
+
+    @Value("${banking.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    public CustomerImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 RoleRepository roleRepository,
+                                 PasswordEncoder passwordEncoder,
+                                 ShardRouter shardRouter,
+                                 UserIdentityFilter userIdentityFilter,
+                                 Validator validator,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.shardRouter = shardRouter;
+        this.userIdentityFilter = userIdentityFilter;
+        this.validator = validator;
+        this.importedCounter = Counter.builder("banking.import.rows")
+                .description("Rows of customer import files")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("banking.import.rows")
+                .description("Rows of customer import files")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports the file, reading it as it arrives. Progress is visible through
+     * getImports() while it runs; the returned report lists the rows that
+     * failed.
+     */
+    public ImportReport importCustomers(InputStream csv) {
+        if (engineEnabled) {
+            throw new BankingException("Accounts cannot be imported while the posting engine owns the balances",
+                    "ENGINE_ENABLED", 409);
+        }
+        Long customerRoleId = roleRepository.findByName(Role.RoleName.CUSTOMER)
+                .orElseThrow(() -> new RuntimeException("Error: Customer role not found - please contact system administrator"))
+                .getId();
+        ImportJob job = startJob();
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+             ExecutorService hashPool = Executors.newFixedThreadPool(threads,
+                     Thread.ofPlatform().name("import-hash-", 0).factory())) {
+            Map<String, Integer> columns = readHeader(reader.readLine());
+            ImportRun run = new ImportRun(job, columns, customerRoleId, hashPool);
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            String text;
+            long line = 1;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                job.rowsRead.incrementAndGet();
+                ImportRow row = run.parse(line, text);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkSize) {
+                    run.importChunk(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            run.importChunk(chunk);
+            job.finish(ImportStatus.COMPLETED);
+        } catch (IOException e) {
+            job.finish(ImportStatus.FAILED);
+            throw new BankingException("Could not read the import file: " + e.getMessage(), "IMPORT_FAILED", 500);
+        } catch (RuntimeException e) {
+            job.finish(ImportStatus.FAILED);
+            throw e;
+        }
+        ImportReport report = job.report();
+        logger.info("Imported {} users and {} accounts from {} rows in {} ms ({} rows/s), {} rows failed",
+                report.usersCreated(), report.accountsCreated(), report.rowsRead(), report.durationMs(),
+                report.rowsPerSecond(), report.rowsFailed());
+        return report;
+    }
+
+    /**
+     * Imports that are running and the most recent finished ones, newest first.
+     */
+    public List<ImportReport> getImports() {
+        return jobs.stream().map(ImportJob::report).toList();
+    }
+
+    private ImportJob startJob() {
+        ImportJob job = new ImportJob();
+        jobs.addFirst(job);
+        long finished = 0;
+        for (ImportJob existing : jobs) {
+            if (existing.status != ImportStatus.RUNNING && ++finished > retainedReports) {
+                jobs.remove(existing);
+            }
+        }
+        return job;
+    }
+
+    private Map<String, Integer> readHeader(String header) {
+        if (header == null) {
+            throw new BankingException("The import file is empty", "IMPORT_INVALID");
+        }
+        List<String> names = splitCsvLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        if (names == null) {
+            throw new BankingException("The import file's header row is not valid CSV", "IMPORT_INVALID");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new BankingException("The import file has no " + required + " column", "IMPORT_INVALID");
+            }
+        }
+        if (!columns.containsKey("password") && !columns.containsKey("password_hash")) {
+            throw new BankingException("The import file needs a password or password_hash column", "IMPORT_INVALID");
+        }
+        return columns;
+    }
+
+    // Splits one CSV record; returns null when a quoted field is not closed on the line
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * State of one file being imported: its columns and what it has already
+     * claimed, so duplicates within the file are caught as well.
+     */
+    private final class ImportRun {
+
+        private final ImportJob job;
+        private final Map<String, Integer> columns;
+        private final Long customerRoleId;
+        private final ExecutorService hashPool;
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> accountNumbers = new HashSet<>();
+
+        private ImportRun(ImportJob job, Map<String, Integer> columns, Long customerRoleId, ExecutorService hashPool) {
+            this.job = job;
+            this.columns = columns;
+            this.customerRoleId = customerRoleId;
+            this.hashPool = hashPool;
+        }
+
+        private ImportRow parse(long line, String text) {
+            List<String> fields = splitCsvLine(text);
+            if (fields == null) {
+                return reject(line, "Not valid CSV: a quoted field is not closed");
+            }
+            ImportRow row = new ImportRow(line);
+            row.username = field(fields, "username");
+            row.email = field(fields, "email");
+            row.password = field(fields, "password");
+            row.passwordHash = field(fields, "password_hash");
+            row.firstName = field(fields, "first_name");
+            row.lastName = field(fields, "last_name");
+            row.phoneNumber = field(fields, "phone_number");
+            String accountType = field(fields, "account_type");
+            String initialBalance = field(fields, "initial_balance");
+
+            String violations = violations(row);
+            if (!violations.isEmpty()) {
+                return reject(line, violations);
+            }
+            if (row.passwordHash != null && !BCRYPT_HASH.matcher(row.passwordHash).matches()) {
+                return reject(line, "password_hash is not a BCrypt hash");
+            }
+            if (accountType != null) {
+                try {
+                    row.accountType = Account.AccountType.valueOf(accountType.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    return reject(line, "Unknown account type: " + accountType);
+                }
+                try {
+                    row.initialBalance = initialBalance != null ? new BigDecimal(initialBalance) : BigDecimal.ZERO;
+                } catch (NumberFormatException e) {
+                    return reject(line, "Initial balance is not a number: " + initialBalance);
+                }
+                if (row.initialBalance.signum() < 0 || row.initialBalance.scale() > 2) {
+                    return reject(line, "Initial balance must be a non-negative amount with at most 2 decimals");
+                }
+            } else if (initialBalance != null) {
+                return reject(line, "An initial balance needs an account_type");
+            }
+            if (!usernames.add(row.username)) {
+                return reject(line, "Username '" + row.username + "' appears earlier in the file");
+            }
+            if (!emails.add(row.email)) {
+                return reject(line, "Email '" + row.email + "' appears earlier in the file");
+            }
+            return row;
+        }
+
+        // The registration constraints, except the password's when a hash is given instead
+        private String violations(ImportRow row) {
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername(row.username);
+            request.setEmail(row.email);
+            request.setPassword(row.password);
+            request.setFirstName(row.firstName);
+            request.setLastName(row.lastName);
+            request.setPhoneNumber(row.phoneNumber);
+            return validator.validate(request).stream()
+                    .filter(violation -> row.passwordHash == null
+                            || !violation.getPropertyPath().toString().equals("password"))
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private ImportRow reject(long line, String message) {
+            job.fail(line, message);
+            failedCounter.increment();
+            return null;
+        }
+
+        private void importChunk(List<ImportRow> chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ImportRow> rows = withoutExistingUsers(chunk);
+            hashPasswords(rows);
+
+            List<ImportRow> created = inBatchOrAlone(rows, "Could not be inserted: ",
+                    batch -> shardRouter.onShard(0, false, () -> insertUsers(batch)));
+            job.usersCreated.addAndGet(created.size());
+            created.forEach(row -> userIdentityFilter.add(row.username, row.email));
+
+            Map<Integer, List<ImportRow>> accountsByShard = new LinkedHashMap<>();
+            for (ImportRow row : created) {
+                if (row.accountType != null) {
+                    row.accountNumber = newAccountNumber();
+                    accountsByShard.computeIfAbsent(shardRouter.shardForAccountNumber(row.accountNumber),
+                            shard -> new ArrayList<>()).add(row);
+                }
+            }
+            // Accounts on the other shards reference their owners there
+            if (!accountsByShard.isEmpty() && !accountsByShard.keySet().equals(Set.of(0))) {
+                shardRouter.replicateUsers();
+            }
+            long requested = 0;
+            long accounts = 0;
+            for (Map.Entry<Integer, List<ImportRow>> shardRows : accountsByShard.entrySet()) {
+                requested += shardRows.getValue().size();
+                accounts += inBatchOrAlone(shardRows.getValue(), "User created, but the account could not be: ",
+                        batch -> shardRouter.onShard(shardRows.getKey(), false, () -> insertAccounts(batch))).size();
+            }
+            job.accountsCreated.addAndGet(accounts);
+            // Rows whose account failed were counted as failed already
+            importedCounter.increment(created.size() - (requested - accounts));
+            logger.debug("Import {}: {} rows read, {} users created", job.id, job.rowsRead.get(), job.usersCreated.get());
+        }
+
+        // One IN query each for usernames and emails instead of two lookups per row
+        private List<ImportRow> withoutExistingUsers(List<ImportRow> chunk) {
+            Set<String> takenUsernames = new HashSet<>(jdbcTemplate.queryForList(FIND_USERNAMES,
+                    Map.of("values", chunk.stream().map(row -> row.username).toList()), String.class));
+            Set<String> takenEmails = new HashSet<>(jdbcTemplate.queryForList(FIND_EMAILS,
+                    Map.of("values", chunk.stream().map(row -> row.email).toList()), String.class));
+            List<ImportRow> rows = new ArrayList<>(chunk.size());
+            for (ImportRow row : chunk) {
+                if (takenUsernames.contains(row.username)) {
+                    reject(row.line, "Username '" + row.username + "' is already taken");
+                } else if (takenEmails.contains(row.email)) {
+                    reject(row.line, "Email '" + row.email + "' is already registered");
+                } else {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        private void hashPasswords(List<ImportRow> rows) {
+            List<Future<String>> hashes = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                hashes.add(row.passwordHash == null ? hashPool.submit(() -> passwordEncoder.encode(row.password)) : null);
+            }
+            try {
+                for (int i = 0; i < rows.size(); i++) {
+                    if (hashes.get(i) != null) {
+                        rows.get(i).passwordHash = hashes.get(i).get();
+                        rows.get(i).password = null;
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Password hashing failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BankingException("The import was interrupted", "IMPORT_FAILED", 500);
+            }
+        }
+
+        private Void insertUsers(List<ImportRow> rows) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_USER, rows.stream()
+                    .map(row -> new MapSqlParameterSource()
+                            .addValue("username", row.username)
+                            .addValue("password", row.passwordHash)
+                            .addValue("email", row.email)
+                            .addValue("firstName", row.firstName)
+                            .addValue("lastName", row.lastName)
+                            .addValue("phoneNumber", row.phoneNumber)
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new));
+            Map<String, Long> ids = new HashMap<>();
+            jdbcTemplate.query(FIND_USER_IDS, Map.of("values", rows.stream().map(row -> row.username).toList()),
+                    rs -> {
+                        ids.put(rs.getString(2), rs.getLong(1));
+                    });
+            for (ImportRow row : rows) {
+                row.userId = ids.get(row.username);
+            }
+            jdbcTemplate.batchUpdate(INSERT_USER_ROLE, rows.stream()
+                    .map(row -> new MapSqlParameterSource()
+                            .addValue("userId", row.userId)
+                            .addValue("roleId", customerRoleId))
+                    .toArray(SqlParameterSource[]::new));
+            return null;
+        }
+
+        private Void insertAccounts(List<ImportRow> rows) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_ACCOUNT, rows.stream()
+                    .map(row -> new MapSqlParameterSource()
+                            .addValue("accountNumber", row.accountNumber)
+                            .addValue("balance", row.initialBalance)
+                            .addValue("accountType", row.accountType.name())
+                            .addValue("userId", row.userId)
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new));
+            List<ImportRow> funded = rows.stream().filter(row -> row.initialBalance.signum() > 0).toList();
+            if (funded.isEmpty()) {
+                return null;
+            }
+            // The opening balance is recorded as a deposit so the account's history adds up to it
+            Map<String, Long> ids = new HashMap<>();
+            jdbcTemplate.query(FIND_ACCOUNT_IDS, Map.of("values", funded.stream().map(row -> row.accountNumber).toList()),
+                    rs -> {
+                        ids.put(rs.getString(2), rs.getLong(1));
+                    });
+            jdbcTemplate.batchUpdate(INSERT_OPENING_BALANCE, funded.stream()
+                    .map(row -> new MapSqlParameterSource()
+                            .addValue("amount", row.initialBalance)
+                            .addValue("accountId", ids.get(row.accountNumber))
+                            .addValue("referenceNumber", Transaction.newReferenceNumber())
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new));
+            return null;
+        }
+
+        /**
+         * Runs the insert for the whole batch; if it fails, for each row on its
+         * own so only the offending rows are reported. Returns the rows that
+         * went in.
+         */
+        private List<ImportRow> inBatchOrAlone(List<ImportRow> rows, String failure, Consumer<List<ImportRow>> insert) {
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            try {
+                insert.accept(rows);
+                return rows;
+            } catch (DataAccessException e) {
+                if (rows.size() == 1) {
+                    reject(rows.get(0).line, failure + e.getMostSpecificCause().getMessage());
+                    return List.of();
+                }
+                logger.debug("Import {}: batch of {} rows failed, retrying row by row: {}", job.id, rows.size(),
+                        e.getMessage());
+                List<ImportRow> inserted = new ArrayList<>(rows.size());
+                for (ImportRow row : rows) {
+                    inserted.addAll(inBatchOrAlone(List.of(row), failure, insert));
+                }
+                return inserted;
+            }
+        }
+
+        // Account.newAccountNumber() repeats within a millisecond often enough to matter at this volume
+        private String newAccountNumber() {
+            String accountNumber;
+            do {
+                accountNumber = Account.newAccountNumber();
+            } while (!accountNumbers.add(accountNumber));
+            return accountNumber;
+        }
+    }
+
+    private static final class ImportRow {
+
+        private final long line;
+        private String username;
+        private String email;
+        private String password;
+        private String passwordHash;
+        private String firstName;
+        private String lastName;
+        private String phoneNumber;
+        private Account.AccountType accountType;
+        private BigDecimal initialBalance;
+        private Long userId;
+        private String accountNumber;
+
+        private ImportRow(long line) {
+            this.line = line;
+        }
+    }
+
+    private final class ImportJob {
+
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long started = System.nanoTime();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong usersCreated = new AtomicLong();
+        private final AtomicLong accountsCreated = new AtomicLong();
+        private final AtomicLong rowsFailed = new AtomicLong();
+        private final Deque<RowError> errors = new ConcurrentLinkedDeque<>();
+        private volatile ImportStatus status = ImportStatus.RUNNING;
+        private volatile LocalDateTime completedAt;
+        private volatile long elapsed;
+
+        private void fail(long line, String message) {
+            // Only the first errors are kept; the count covers all of them
+            if (rowsFailed.incrementAndGet() <= maxReportedErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        private void finish(ImportStatus finalStatus) {
+            elapsed = System.nanoTime() - started;
+            completedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        private ImportReport report() {
+            long nanos = status == ImportStatus.RUNNING ? System.nanoTime() - started : elapsed;
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return new ImportReport(id, status, startedAt, completedAt, rowsRead.get(), usersCreated.get(),
+                    accountsCreated.get(), rowsFailed.get(), List.copyOf(errors),
+                    TimeUnit.NANOSECONDS.toMillis(nanos), Math.round(rowsRead.get() / seconds));
+        }
+    }
+
+    public enum ImportStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public record RowError(long line, String message) {
+    }
+
+    public record ImportReport(String id, ImportStatus status, LocalDateTime startedAt, LocalDateTime completedAt,
+                               long rowsRead, long usersCreated, long accountsCreated, long rowsFailed,
+                               List<RowError> errors, long durationMs, long rowsPerSecond) {
+    }
+}
@@ -7,15 +7,18 @@ import com.example.banking_system.entity.User;
 import com.example.banking_system.repository.AccountRepository;
 import com.example.banking_system.repository.TransactionRepository;
 import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 @Service
 @Transactional(readOnly = true)
@@ -33,6 +36,9 @@ public class DashboardService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     public DashboardStatsDTO getAdminStats() {
         DashboardStatsDTO stats = new DashboardStatsDTO();
         
@@ -43,7 +49,7 @@ public class DashboardService {
         stats.setTellerCount(userService.getTellerCount());
         
         // Account statistics
-        List<Account> allAccounts = accountRepository.findAll();
+        List<Account> allAccounts = onEveryShard(accountRepository::findAll);
         stats.setTotalAccounts(allAccounts.size());
         stats.setCheckingAccounts(allAccounts.stream()
                 .filter(account -> account.getAccountType() == Account.AccountType.CHECKING)
@@ -66,7 +72,7 @@ public class DashboardService {
         }
         
         // Transaction statistics
-        List<Transaction> allTransactions = transactionRepository.findAll();
+        List<Transaction> allTransactions = onEveryShard(transactionRepository::findAll);
         stats.setRecentTransactions(allTransactions.size());
         
         // Transaction type breakdown
@@ -96,7 +102,7 @@ public class DashboardService {
         
         // Recent activity (last 30 days)
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Transaction> recentTransactions = transactionRepository.findByTimestampAfter(thirtyDaysAgo);
+        List<Transaction> recentTransactions = onEveryShard(() -> transactionRepository.findByTimestampAfter(thirtyDaysAgo));
         
         stats.setRecentDeposits(recentTransactions.stream()
                 .filter(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT)
@@ -123,7 +129,7 @@ public class DashboardService {
         
         stats.setCustomerCount(userService.getCustomerCount());
         
-        List<Account> allAccounts = accountRepository.findAll();
+        List<Account> allAccounts = onEveryShard(accountRepository::findAll);
         stats.setTotalAccounts(allAccounts.size());
         
         BigDecimal totalBalance = allAccounts.stream()
@@ -133,7 +139,7 @@ public class DashboardService {
         
         // Recent transactions (last 7 days for teller view)
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        List<Transaction> recentTransactions = transactionRepository.findByTimestampAfter(sevenDaysAgo);
+        List<Transaction> recentTransactions = onEveryShard(() -> transactionRepository.findByTimestampAfter(sevenDaysAgo));
         stats.setRecentTransactions(recentTransactions.size());
         
         return stats;
@@ -145,7 +151,15 @@ public class DashboardService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
         
-        List<Account> userAccounts = accountRepository.findByUserId(user.getId());
+        // Customer's accounts and recent transactions (last 30 days), each shard's postings against its own accounts
+        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
+        List<CustomerShard> shards = shardRouter.onEveryShard(() -> {
+            List<Account> accounts = accountRepository.findByUserId(user.getId());
+            long recent = accounts.isEmpty() ? 0
+                    : transactionRepository.findByUserAccountsAndTimestampAfter(accounts, thirtyDaysAgo).size();
+            return new CustomerShard(accounts, recent);
+        });
+        List<Account> userAccounts = shards.stream().flatMap(shard -> shard.accounts().stream()).toList();
         stats.setTotalAccounts(userAccounts.size());
         
         BigDecimal totalBalance = userAccounts.stream()
@@ -153,11 +167,7 @@ public class DashboardService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.setTotalBalance(totalBalance);
         
-        // Customer's recent transactions (last 30 days)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Transaction> userTransactions = transactionRepository.findByUserAccountsAndTimestampAfter(
-                userAccounts, thirtyDaysAgo);
-        stats.setRecentTransactions(userTransactions.size());
+        stats.setRecentTransactions(shards.stream().mapToLong(CustomerShard::recentTransactions).sum());
         
         // Additional customer-specific data
         Map<String, Object> additionalData = new HashMap<>();
@@ -168,4 +178,14 @@ public class DashboardService {
         
         return stats;
     }
-}
\ No newline at end of file
+
+    // Accounts and transactions are spread over the shards; users and roles live on the first
+    private <T> List<T> onEveryShard(Supplier<List<T>> query) {
+        List<T> rows = new ArrayList<>();
+        shardRouter.onEveryShard(query).forEach(rows::addAll);
+        return rows;
+    }
+
+    private record CustomerShard(List<Account> accounts, long recentTransactions) {
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.exception.BankingException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Starts, stops and dumps a Java Flight Recorder recording on behalf of the
+ * admin API. At most one recording runs at a time.
+ *
+ * The JDK's "default" settings stay under 1% overhead and are meant to be left
+ * on; "profile" samples more and is for short investigations. Both include the
+ * banking.* posting and authentication events. A running recording keeps
+ * max-age of history on disk, and a download dumps that window without stopping
+ * it. A download is opened while the lock is held, so a dump replacing the file
+ * afterwards does not cut it short: on POSIX the open file outlives its
+ * deletion, elsewhere the older file is kept until the next dump.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+    private String recordingSettings;
+    private Path lastDump;
+    // Tells apart dumps taken within the same second
+    private int dumpSequence;
+
+    @Value("${banking.jfr.continuous:false}")
+    private boolean continuous;
+
+    @Value("${banking.jfr.settings:default}")
+    private String defaultSettings;
+
+    @Value("${banking.jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${banking.jfr.directory:./jfr}")
+    private String directory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuousRecording() {
+        if (continuous) {
+            start(defaultSettings);
+        }
+    }
+
+    public RecordingStatus start(String settings) {
+        String name = settings != null ? settings : defaultSettings;
+        lock.lock();
+        try {
+            if (isRunning()) {
+                throw new BankingException("A flight recording is already running", "JFR_RECORDING_ACTIVE", 409);
+            }
+            Configuration configuration;
+            try {
+                configuration = Configuration.getConfiguration(name);
+            } catch (IOException | ParseException e) {
+                throw new BankingException("Unknown recording settings: " + name, "JFR_INVALID_SETTINGS");
+            }
+            Recording started = new Recording(configuration);
+            started.setName("banking-" + name);
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            started.start();
+            recording = started;
+            recordingSettings = name;
+            logger.info("Flight recording started with '{}' settings", name);
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the running recording and writes it to the recording directory.
+     */
+    public RecordingStatus stop() {
+        lock.lock();
+        try {
+            if (!isRunning()) {
+                throw new BankingException("No flight recording is running", "JFR_NO_RECORDING", 404);
+            }
+            Path file = dump(recording);
+            recording.stop();
+            recording.close();
+            recording = null;
+            logger.info("Flight recording stopped and written to {}", file);
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the recorded data for download: a fresh dump of the running
+     * recording, or the file written when the last one was stopped. The
+     * caller closes the stream.
+     */
+    public Download download() {
+        lock.lock();
+        try {
+            Path file;
+            if (isRunning()) {
+                file = dump(recording);
+            } else if (lastDump != null && Files.exists(lastDump)) {
+                file = lastDump;
+            } else {
+                throw new BankingException("No flight recording is available", "JFR_NO_RECORDING", 404);
+            }
+            return new Download(file.getFileName().toString(), Files.size(file), Files.newInputStream(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read flight recording", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RecordingStatus status() {
+        lock.lock();
+        try {
+            boolean running = isRunning();
+            return new RecordingStatus(running,
+                    running ? recordingSettings : null,
+                    running ? recording.getStartTime() : null,
+                    lastDump != null ? lastDump.toString() : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                recording.close();
+                recording = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private Path dump(Recording source) {
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            Path file = dir.resolve("banking-" + FILE_TIMESTAMP.format(Instant.now()) + "-" + ++dumpSequence + ".jfr");
+            source.dump(file);
+            if (lastDump != null) {
+                deletePreviousDump(lastDump);
+            }
+            lastDump = file;
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write flight recording", e);
+        }
+    }
+
+    // Only the latest dump is kept, recordings add up quickly
+    private static void deletePreviousDump(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Windows refuses to delete a file a download still has open
+            logger.warn("Could not delete previous flight recording {}: {}", file, e.getMessage());
+        }
+    }
+
+    public record RecordingStatus(boolean running, String settings, Instant startedAt, String lastDump) {
+    }
+
+    public record Download(String fileName, long size, InputStream content) {
+    }
+}
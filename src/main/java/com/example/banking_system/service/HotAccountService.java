@@ -0,0 +1,160 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.PendingCredit;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.PendingCreditRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write coalescing for hot credit accounts such as merchant settlement or fee
+ * collection.
+ *
+ * A credit to a hot account inserts a row into the pending_credits sub-ledger
+ * instead of updating the account, so concurrent credits only contend on
+ * inserts rather than queueing for one row lock. A scheduled pass folds the
+ * pending rows into Account.balance in batches. A debit from a hot account
+ * holds the account row lock anyway and folds everything pending first, so it
+ * is checked against the folded balance plus pending credits.
+ */
+@Service
+public class HotAccountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotAccountService.class);
+
+    private final AccountRepository accountRepository;
+    private final PendingCreditRepository pendingCreditRepository;
+    private final ShardRouter shardRouter;
+    private final AccountMetadataCache metadataCache;
+    private final StripedBalanceService stripedBalanceService;
+    // Credits whose account no longer exists; reported once and left for manual resolution
+    private final Set<Long> orphanedAccountIds = ConcurrentHashMap.newKeySet();
+
+    @Value("${banking.hot-accounts.fold-batch-size:5000}")
+    private int foldBatchSize;
+
+    @Value("${banking.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    public HotAccountService(AccountRepository accountRepository,
+                             PendingCreditRepository pendingCreditRepository,
+                             ShardRouter shardRouter,
+                             AccountMetadataCache metadataCache,
+                             StripedBalanceService stripedBalanceService) {
+        this.accountRepository = accountRepository;
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.shardRouter = shardRouter;
+        this.metadataCache = metadataCache;
+        this.stripedBalanceService = stripedBalanceService;
+    }
+
+    @Transactional
+    public Account setHotAccount(Long accountId, boolean hot) {
+        shardRouter.bindAccountId(accountId);
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new RuntimeException("Account not found"));
+        if (hot && engineEnabled) {
+            throw new BankingException("Hot accounts are not used while the posting engine is on", "ENGINE_ENABLED", 409);
+        }
+        if (hot && account.getPostingMode() == Account.PostingMode.STRIPED) {
+            throw new BankingException("Striped accounts cannot be hot accounts", "ACCOUNT_STRIPED");
+        }
+        // Credits still pending after hot mode is switched off are folded by the next pass
+        account.setHotAccount(hot);
+        metadataCache.evict(account.getAccountNumber());
+        return accountRepository.save(account);
+    }
+
+    /**
+     * Records a credit to a hot account without touching the account row.
+     */
+    public void appendCredit(Long accountId, BigDecimal amount, String referenceNumber) {
+        PendingCredit credit = new PendingCredit();
+        credit.setAccountId(accountId);
+        credit.setAmount(amount);
+        credit.setReferenceNumber(referenceNumber);
+        pendingCreditRepository.save(credit);
+    }
+
+    /**
+     * Credits to the account that are not yet folded into its balance.
+     */
+    public BigDecimal pendingCredits(Long accountId) {
+        return pendingCreditRepository.sumAmountByAccountId(accountId);
+    }
+
+    /**
+     * Adds all pending credits to the balance of an account whose row the
+     * caller has locked, and returns the amount folded.
+     */
+    public BigDecimal foldPendingCredits(Account lockedAccount) {
+        return fold(lockedAccount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Folds one batch per account per pass, each in its own transaction, so an
+     * account with a large backlog never holds its row lock for long.
+     */
+    @Scheduled(fixedDelayString = "${banking.hot-accounts.fold-interval-ms:250}")
+    public void foldAllPendingCredits() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int current = shard;
+            List<Long> accountIds = shardRouter.onShard(current, true,
+                    pendingCreditRepository::findAccountIdsWithPendingCredits);
+            for (Long accountId : accountIds) {
+                if (orphanedAccountIds.contains(accountId)) {
+                    continue;
+                }
+                try {
+                    boolean found = shardRouter.onShard(current, false, () -> accountRepository.findByIdForUpdate(accountId)
+                            .map(account -> fold(account, 1))
+                            .isPresent());
+                    if (!found && orphanedAccountIds.add(accountId)) {
+                        logger.error("Pending credits of account {} on shard {} have no account to fold into; "
+                                + "they are kept in pending_credits and skipped from now on", accountId, current);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Could not fold pending credits of account {}: {}", accountId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private BigDecimal fold(Account account, int maxBatches) {
+        BigDecimal folded = BigDecimal.ZERO;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<PendingCredit> credits = pendingCreditRepository.findByAccountIdOrderByIdAsc(
+                    account.getId(), PageRequest.of(0, foldBatchSize));
+            if (credits.isEmpty()) {
+                break;
+            }
+            // Delete exactly the rows summed; credits committed meanwhile wait for the next batch
+            folded = credits.stream().map(PendingCredit::getAmount).reduce(folded, BigDecimal::add);
+            pendingCreditRepository.deleteAllInBatch(credits);
+            if (credits.size() < foldBatchSize) {
+                break;
+            }
+        }
+        // A node still caching the hot mode may append credits after the account was striped
+        if (folded.signum() > 0 && account.getPostingMode() == Account.PostingMode.STRIPED) {
+            stripedBalanceService.credit(account, folded);
+        } else if (folded.signum() > 0) {
+            account.setBalance(account.getBalance().add(folded));
+            accountRepository.save(account);
+        }
+        return folded;
+    }
+}
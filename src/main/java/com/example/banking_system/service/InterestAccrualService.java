@@ -0,0 +1,393 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.entity.InterestAccrualRun;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.InterestAccrualRunRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Nightly interest accrual for active savings accounts.
+ *
+ * Each shard's accounts are cut into fixed-width id ranges that a thread pool
+ * works through in parallel. A chunk reads its eligible balances, then in one
+ * database transaction credits them with a batched relative update, inserts
+ * the INTEREST transactions in a JDBC batch and adds its totals to the run's
+ * checkpoint row. Every credited account records the date it has accrued
+ * through and the update only matches accounts that have not, so a chunk can
+ * be retried or a run repeated without paying interest twice. An account
+ * already stamped with a later date, which happens when an interrupted day is
+ * resumed after a newer one completed, is credited unless it has that day's
+ * INTEREST transaction.
+ *
+ * Only days that have ended can be accrued. The nightly run accrues, oldest
+ * first, every day after the last completed one through yesterday, so days
+ * missed while the service was down are caught up.
+ *
+ * The checkpoint's nextAccountId moves up as chunks complete in order, and an
+ * interrupted run resumes from it on the next nightly run. Striped accounts
+ * hold their balance in stripe rows and are skipped; while the posting engine
+ * is on it owns every balance, so accrual does not run.
+ */
+@Service
+public class InterestAccrualService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterestAccrualService.class);
+
+    private static final String ACCOUNT_ID_RANGE = "SELECT MIN(id), MAX(id) FROM accounts WHERE account_type = 'SAVINGS'";
+    // A hot account's balance includes the credits not yet folded into it
+    // Parameters: the date twice, the start of the next day and the day's description. The subquery only runs for
+    // accounts stamped with a later date, and the interest transaction is written after the day ends.
+    private static final String NOT_ACCRUED = "(a.interest_accrued_through IS NULL OR a.interest_accrued_through < ? " +
+            "OR (a.interest_accrued_through > ? AND NOT EXISTS (SELECT 1 FROM transactions t " +
+            "WHERE t.target_account_id = a.id AND t.type = 'INTEREST' AND t.timestamp >= ? AND t.description = ?)))";
+    private static final String SELECT_ELIGIBLE = "SELECT a.id, a.balance + CASE WHEN a.hot_account = TRUE THEN " +
+            "(SELECT COALESCE(SUM(p.amount), 0) FROM pending_credits p WHERE p.account_id = a.id) ELSE 0 END " +
+            "FROM accounts a WHERE a.id >= ? AND a.id < ? " +
+            "AND a.account_type = 'SAVINGS' AND a.is_active = TRUE AND (a.balance > 0 OR a.hot_account = TRUE) " +
+            "AND (a.stripe_count IS NULL OR a.stripe_count <= 1) AND " + NOT_ACCRUED;
+    // The stamp never moves back, so a resumed older day leaves a newer one in place
+    private static final String CREDIT_INTEREST = "UPDATE accounts a SET balance = balance + ?, interest_accrued_through = " +
+            "CASE WHEN interest_accrued_through > ? THEN interest_accrued_through ELSE ? END " +
+            "WHERE a.id = ? AND " + NOT_ACCRUED;
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions (amount, type, target_account_id, " +
+            "description, reference_number, timestamp, status) VALUES (?, 'INTEREST', ?, ?, ?, ?, 'COMPLETED')";
+    // The checkpoint row is only written with plain statements: chunks update it concurrently
+    private static final String ADD_TO_RUN = "UPDATE interest_accrual_runs " +
+            "SET accounts_credited = accounts_credited + ?, interest_total = interest_total + ? WHERE id = ?";
+    private static final String MOVE_CHECKPOINT = "UPDATE interest_accrual_runs SET next_account_id = ? " +
+            "WHERE id = ? AND next_account_id < ?";
+    private static final String COMPLETE_RUN = "UPDATE interest_accrual_runs SET status = 'COMPLETED', completed_at = ? " +
+            "WHERE id = ?";
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InterestAccrualRunRepository runRepository;
+    private final ShardRouter shardRouter;
+    private final Timer runTimer;
+    private final Counter creditedCounter;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${banking.interest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.interest.annual-rate:0.0150}")
+    private BigDecimal annualRate;
+
+    @Value("${banking.interest.days-in-year:365}")
+    private int daysInYear;
+
+    @Value("${banking.interest.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${banking.interest.threads:4}")
+    private int threads;
+
+    @Value("${banking.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    public InterestAccrualService(JdbcTemplate jdbcTemplate,
+                                  InterestAccrualRunRepository runRepository,
+                                  ShardRouter shardRouter,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.runRepository = runRepository;
+        this.shardRouter = shardRouter;
+        this.runTimer = Timer.builder("banking.interest.accrual")
+                .description("Duration of interest accrual runs")
+                .register(meterRegistry);
+        this.creditedCounter = Counter.builder("banking.interest.accounts")
+                .description("Savings accounts credited with interest")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finishes any run an outage interrupted and accrues every day since the
+     * last completed one through the day that just ended, oldest first.
+     */
+    @Scheduled(cron = "${banking.interest.cron:0 30 1 * * *}")
+    public void runNightly() {
+        if (!enabled || engineEnabled) {
+            return;
+        }
+        try {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            TreeSet<LocalDate> dates = new TreeSet<>();
+            shardRouter.onEveryShard(() -> runRepository.findByStatusOrderByAccrualDateAsc(InterestAccrualRun.Status.RUNNING))
+                    .forEach(runs -> runs.forEach(run -> dates.add(run.getAccrualDate())));
+            // The shard furthest behind decides where catching up starts; accrue skips the shards that are done
+            shardRouter.onEveryShard(() -> runRepository.findTopByStatusOrderByAccrualDateDesc(
+                            InterestAccrualRun.Status.COMPLETED))
+                    .stream()
+                    .flatMap(Optional::stream)
+                    .map(InterestAccrualRun::getAccrualDate)
+                    .min(LocalDate::compareTo)
+                    .ifPresent(lastCompleted -> Stream.iterate(lastCompleted.plusDays(1), day -> day.isBefore(yesterday),
+                            day -> day.plusDays(1)).forEach(dates::add));
+            dates.add(yesterday);
+            for (LocalDate date : dates.headSet(yesterday, true)) {
+                accrue(date);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Nightly interest accrual failed", e);
+        }
+    }
+
+    /**
+     * Accrues one day of interest on every shard, resuming from the
+     * checkpoints of an earlier attempt. Days already completed are skipped.
+     */
+    public AccrualSummary accrue(LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            throw new BankingException("Interest can only be accrued for days that have ended", "INVALID_DATE");
+        }
+        if (engineEnabled) {
+            throw new BankingException("Interest accrual cannot run while the posting engine owns the balances",
+                    "ENGINE_ENABLED", 409);
+        }
+        if (!runLock.tryLock()) {
+            throw new BankingException("An interest accrual run is already in progress", "ACCRUAL_RUNNING", 409);
+        }
+        try {
+            long started = System.nanoTime();
+            BigDecimal dailyRate = annualRate.divide(BigDecimal.valueOf(daysInYear), 12, RoundingMode.HALF_EVEN);
+            List<ShardRun> shardRuns = new ArrayList<>();
+            List<Future<ChunkResult>> chunks = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            long scanned = 0;
+            long credited = 0;
+            BigDecimal interest = BigDecimal.ZERO;
+
+            try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads),
+                    Thread.ofPlatform().name("interest-accrual-", 0).factory())) {
+                for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                    ShardRun shardRun = startShard(shard, date);
+                    if (shardRun == null) {
+                        continue;
+                    }
+                    shardRuns.add(shardRun);
+                    for (int chunk = 0; chunk < shardRun.chunkCount; chunk++) {
+                        int index = chunk;
+                        chunks.add(pool.submit(() -> accrueChunk(shardRun, index, date, dailyRate)));
+                    }
+                }
+                for (Future<ChunkResult> chunk : chunks) {
+                    try {
+                        ChunkResult result = chunk.get();
+                        scanned += result.scanned();
+                        credited += result.credited();
+                        interest = interest.add(result.interest());
+                    } catch (ExecutionException e) {
+                        failures.add(e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        pool.shutdownNow();
+                        throw new BankingException("Interest accrual for " + date + " was interrupted", "ACCRUAL_FAILED", 500);
+                    }
+                }
+            }
+
+            long elapsed = System.nanoTime() - started;
+            runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            creditedCounter.increment(credited);
+            double seconds = Math.max(elapsed, 1) / 1e9;
+            AccrualSummary summary = new AccrualSummary(date, scanned, credited, interest,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(scanned / seconds));
+            if (!failures.isEmpty()) {
+                logger.error("Interest accrual for {} failed in {} of {} chunks; it resumes from its checkpoint",
+                        date, failures.size(), chunks.size(), failures.get(0));
+                throw new BankingException("Interest accrual for " + date + " failed in " + failures.size()
+                        + " chunks and resumes from its checkpoint on the next run", "ACCRUAL_FAILED", 500);
+            }
+            for (ShardRun shardRun : shardRuns) {
+                shardRun.complete();
+            }
+            logger.info("Accrued interest for {}: {} accounts credited {} out of {} scanned in {} ms ({} accounts/s)",
+                    date, credited, interest, scanned, summary.durationMs(), summary.accountsPerSecond());
+            return summary;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * The most recent runs on every shard.
+     */
+    public List<InterestAccrualRun> getRecentRuns() {
+        return shardRouter.onEveryShard(runRepository::findTop30ByOrderByAccrualDateDescShardAsc).stream()
+                .flatMap(Collection::stream)
+                .toList();
+    }
+
+    private ShardRun startShard(int shard, LocalDate date) {
+        return shardRouter.onShard(shard, false, () -> {
+            InterestAccrualRun run = runRepository.findByAccrualDateAndShard(date, shard).orElse(null);
+            if (run != null && run.getStatus() == InterestAccrualRun.Status.COMPLETED) {
+                return null;
+            }
+            long[] range = jdbcTemplate.queryForObject(ACCOUNT_ID_RANGE,
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            if (run == null) {
+                run = new InterestAccrualRun();
+                run.setAccrualDate(date);
+                run.setShard(shard);
+                run.setNextAccountId(range[0]);
+                run = runRepository.save(run);
+            }
+            // MIN and MAX are null, read as 0, when the shard has no savings accounts
+            long first = Math.max(run.getNextAccountId(), range[0]);
+            long chunks = range[1] >= first ? (range[1] - first) / chunkSize + 1 : 0;
+            return new ShardRun(run.getId(), shard, first, Math.toIntExact(chunks));
+        });
+    }
+
+    private ChunkResult accrueChunk(ShardRun shardRun, int index, LocalDate date, BigDecimal dailyRate) {
+        long from = shardRun.firstAccountId + (long) index * chunkSize;
+        long to = from + chunkSize;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ChunkResult result = shardRouter.onShard(shardRun.shard, false,
+                        () -> creditChunk(shardRun.runId, from, to, date, dailyRate));
+                shardRun.chunkDone(index);
+                return result;
+            } catch (DataAccessException e) {
+                // Deadlocks with postings on the same accounts are retried; nothing of the chunk was committed
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Interest chunk [{}, {}) on shard {} failed, retrying: {}", from, to, shardRun.shard,
+                        e.getMessage());
+            }
+        }
+    }
+
+    private ChunkResult creditChunk(long runId, long from, long to, LocalDate date, BigDecimal dailyRate) {
+        Date accrualDate = Date.valueOf(date);
+        Timestamp dayEnd = Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+        String description = description(date);
+        List<Long> accountIds = new ArrayList<>();
+        List<BigDecimal> amounts = new ArrayList<>();
+        int[] scanned = {0};
+        jdbcTemplate.query(SELECT_ELIGIBLE, rs -> {
+            scanned[0]++;
+            BigDecimal amount = rs.getBigDecimal(2).multiply(dailyRate).setScale(2, RoundingMode.HALF_EVEN);
+            if (amount.signum() > 0) {
+                accountIds.add(rs.getLong(1));
+                amounts.add(amount);
+            }
+        }, from, to, accrualDate, accrualDate, dayEnd, description);
+        if (accountIds.isEmpty()) {
+            return new ChunkResult(scanned[0], 0, BigDecimal.ZERO);
+        }
+
+        List<Object[]> credits = new ArrayList<>(accountIds.size());
+        for (int i = 0; i < accountIds.size(); i++) {
+            credits.add(new Object[]{amounts.get(i), accrualDate, accrualDate, accountIds.get(i),
+                    accrualDate, accrualDate, dayEnd, description});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(CREDIT_INTEREST, credits);
+
+        // Only accounts the update matched get a transaction; the others were credited concurrently
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>(accountIds.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                inserts.add(new Object[]{amounts.get(i), accountIds.get(i), description, Transaction.newReferenceNumber(), timestamp});
+                total = total.add(amounts.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, inserts);
+            jdbcTemplate.update(ADD_TO_RUN, inserts.size(), total, runId);
+        }
+        return new ChunkResult(scanned[0], inserts.size(), total);
+    }
+
+    // Also how a resumed day recognises the accounts it already credited
+    private static String description(LocalDate date) {
+        return "Interest for " + date;
+    }
+
+    /**
+     * One shard's part of a run: its chunks and how far they have completed
+     * without a gap, which is what the checkpoint may claim.
+     */
+    private final class ShardRun {
+
+        private final long runId;
+        private final int shard;
+        private final long firstAccountId;
+        private final int chunkCount;
+        private final boolean[] done;
+        // Chunks finish on several pool threads; the checkpoint is written under the lock so it only moves up
+        private final ReentrantLock progressLock = new ReentrantLock();
+        private int contiguous;
+
+        private ShardRun(long runId, int shard, long firstAccountId, int chunkCount) {
+            this.runId = runId;
+            this.shard = shard;
+            this.firstAccountId = firstAccountId;
+            this.chunkCount = chunkCount;
+            this.done = new boolean[chunkCount];
+        }
+
+        private void chunkDone(int index) {
+            progressLock.lock();
+            try {
+                done[index] = true;
+                int before = contiguous;
+                while (contiguous < chunkCount && done[contiguous]) {
+                    contiguous++;
+                }
+                if (contiguous > before) {
+                    long next = firstAccountId + (long) contiguous * chunkSize;
+                    shardRouter.onShard(shard, false, () -> jdbcTemplate.update(MOVE_CHECKPOINT, next, runId, next));
+                }
+            } finally {
+                progressLock.unlock();
+            }
+        }
+
+        private void complete() {
+            shardRouter.onShard(shard, false, () -> jdbcTemplate.update(COMPLETE_RUN,
+                    Timestamp.valueOf(LocalDateTime.now()), runId));
+        }
+    }
+
+    private record ChunkResult(long scanned, long credited, BigDecimal interest) {
+    }
+
+    public record AccrualSummary(LocalDate accrualDate, long accountsScanned, long accountsCredited,
+                                 BigDecimal interestCredited, long durationMs, long accountsPerSecond) {
+    }
+}
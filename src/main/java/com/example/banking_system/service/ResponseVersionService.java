@@ -0,0 +1,126 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.engine.PostingEngine;
+import com.example.banking_system.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * ETags for polled read endpoints, computed from a few aggregates instead of
+ * the response itself, so an unchanged poll is answered with a 304 after one
+ * small query and without building or serializing anything.
+ *
+ * A customer's responses change only when one of their accounts is created,
+ * updated or deleted, or gains a posting: every balance change inserts a
+ * transaction row, and the folding of hot-account credits and admin changes
+ * touch updated_at. The version lists each account with its updated_at and
+ * its number of postings rather than the newest timestamps: a posting is
+ * stamped before it commits, so one committing after a newer one would leave
+ * a maximum unchanged, while it always adds to its account's count. The
+ * book-wide version for the staff dashboards uses the
+ * newest transaction id and account and user counts instead. Dashboards also
+ * count the last days' activity, which changes as time passes, so their
+ * tags include the current minute. Tags are weak: Tomcat compresses only
+ * responses without a strong ETag, and the same tag covers the gzipped and
+ * plain bytes. A status change of an existing transaction row alone, which
+ * only happens while a cross-shard transfer is being recovered, does not
+ * change them.
+ *
+ * Tagged responses are sent with Cache-Control no-cache, private in place of
+ * Spring Security's default no-store, which would keep browsers from storing
+ * the body and so from ever sending If-None-Match.
+ *
+ * With the posting engine on, balances are served from memory ahead of the
+ * rows, so no tags are produced and every request is answered in full.
+ */
+@Service
+public class ResponseVersionService {
+
+    // Per shard and account: its last update and its postings either way, each counted on an index
+    private static final String USER_VERSION = "SELECT a.id, a.updated_at, " +
+            "(SELECT COUNT(*) FROM transactions t WHERE t.source_account_id = a.id), " +
+            "(SELECT COUNT(*) FROM transactions t WHERE t.target_account_id = a.id) " +
+            "FROM accounts a JOIN users u ON u.id = a.user_id WHERE u.username = ? ORDER BY a.id";
+    private static final String BOOK_VERSION = "SELECT (SELECT MAX(id) FROM transactions), " +
+            "(SELECT COUNT(*) FROM accounts), (SELECT MAX(updated_at) FROM accounts)";
+    private static final String USERS_VERSION = "SELECT COUNT(*), MAX(updated_at) FROM users";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final boolean engineEnabled;
+
+    @Value("${banking.http.etags.enabled:true}")
+    private boolean enabled;
+
+    public ResponseVersionService(JdbcTemplate jdbcTemplate, ShardRouter shardRouter,
+                                  ObjectProvider<PostingEngine> postingEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.engineEnabled = postingEngine.getIfAvailable() != null;
+    }
+
+    /**
+     * Weak ETag for a response built from the user's accounts and their
+     * postings, or null when responses are not tagged.
+     */
+    public String userETag(String resource, String username, WebRequest request) {
+        String version = userVersion(username);
+        return version == null ? null : eTag(resource + "|" + username + "|" + version, request);
+    }
+
+    /**
+     * Like userETag, for dashboards that also count the last days' activity;
+     * valid for the current minute at most.
+     */
+    public String userDashboardETag(String resource, String username, WebRequest request) {
+        String version = userVersion(username);
+        return version == null ? null
+                : eTag(resource + "|" + username + "|" + version + "|" + currentMinute(), request);
+    }
+
+    /**
+     * Weak ETag for a dashboard of the whole book, valid for the current
+     * minute at most, or null when responses are not tagged.
+     */
+    public String bookETag(String resource, WebRequest request) {
+        if (!enabled || engineEnabled) {
+            return null;
+        }
+        // Users live on the first shard; the other shards only hold copies
+        String users = shardRouter.onShard(0, true, () -> jdbcTemplate.queryForObject(USERS_VERSION,
+                (rs, rowNum) -> rs.getLong(1) + "," + rs.getTimestamp(2)));
+        List<String> shards = shardRouter.onEveryShard(() -> jdbcTemplate.queryForObject(BOOK_VERSION,
+                (rs, rowNum) -> rs.getLong(1) + "," + rs.getLong(2) + "," + rs.getTimestamp(3)));
+        return eTag(resource + "|" + users + "|" + shards + "|" + currentMinute(), request);
+    }
+
+    private String userVersion(String username) {
+        if (!enabled || engineEnabled) {
+            return null;
+        }
+        return shardRouter.onEveryShard(() -> jdbcTemplate.query(USER_VERSION,
+                (rs, rowNum) -> rs.getLong(1) + "," + rs.getTimestamp(2) + "," + rs.getLong(3) + ","
+                        + rs.getLong(4), username)).toString();
+    }
+
+    private static Instant currentMinute() {
+        return Instant.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    // The same data is encoded differently per negotiated format, so the Accept header is part of the tag
+    private static String eTag(String version, WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String digest = DigestUtils.md5DigestAsHex((version + "|" + accept).getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + digest + "\"";
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.StandingOrderRequest;
+import com.example.banking_system.dto.StandingOrderResponse;
+import com.example.banking_system.dto.TransferRequest;
+import com.example.banking_system.entity.StandingOrder;
+import com.example.banking_system.entity.User;
+import com.example.banking_system.exception.AccessDeniedException;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.StandingOrderRepository;
+import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring transfers set up by customers and executed by the bank.
+ *
+ * Every poll claims the due orders of each shard in batches: a claim selects
+ * them in next_run_at order with SKIP LOCKED, so nodes polling at the same
+ * time take disjoint batches instead of queueing on each other's locks, and
+ * leases them by moving next_run_at lease-seconds ahead before committing.
+ * The claimed orders are executed as transfers on a bounded pool, with the
+ * owner of the source account as the authenticated user.
+ *
+ * An order on one shard is moved to its next occurrence in the same database
+ * transaction as the transfer, and only while the claimed occurrence is still
+ * current, so a node that lost its lease cannot pay the occurrence twice. A
+ * transfer across shards runs as the coordinator's saga and cannot share that
+ * transaction; the order is moved on first and put back if the transfer
+ * fails. Failed attempts are retried after retry-minutes up to max-attempts,
+ * after which the occurrence is recorded as missed.
+ *
+ * Orders falling on the same day are not all run at execution-time: each one
+ * is offset by a fixed amount within spread-minutes derived from its account
+ * numbers, and a poll claims at most max-per-poll orders per shard, so the
+ * first of the month is worked off at a bounded rate rather than at once.
+ */
+@Service
+public class StandingOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StandingOrderService.class);
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final UserRepository userRepository;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final ShardRouter shardRouter;
+    private final Counter executedCounter;
+    private final Counter retriedCounter;
+    private final Counter missedCounter;
+
+    @Value("${banking.standing-orders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.standing-orders.batch-size:100}")
+    private int batchSize;
+
+    @Value("${banking.standing-orders.max-per-poll:1000}")
+    private int maxPerPoll;
+
+    @Value("${banking.standing-orders.threads:4}")
+    private int threads;
+
+    @Value("${banking.standing-orders.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${banking.standing-orders.execution-time:06:00}")
+    private LocalTime executionTime;
+
+    @Value("${banking.standing-orders.spread-minutes:240}")
+    private int spreadMinutes;
+
+    @Value("${banking.standing-orders.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${banking.standing-orders.retry-minutes:60}")
+    private long retryMinutes;
+
+    public StandingOrderService(StandingOrderRepository standingOrderRepository,
+                                UserRepository userRepository,
+                                AccountService accountService,
+                                TransactionService transactionService,
+                                ShardRouter shardRouter,
+                                MeterRegistry meterRegistry) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.userRepository = userRepository;
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.shardRouter = shardRouter;
+        this.executedCounter = outcomeCounter(meterRegistry, "executed");
+        this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+        this.missedCounter = outcomeCounter(meterRegistry, "missed");
+    }
+
+    public StandingOrderResponse create(StandingOrderRequest request) {
+        if (request.getSourceAccountNumber().equals(request.getTargetAccountNumber())) {
+            throw new RuntimeException("Source and target accounts cannot be the same");
+        }
+        if (request.getStartDate().isBefore(LocalDate.now())) {
+            throw new BankingException("Start date cannot be in the past", "INVALID_SCHEDULE");
+        }
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new BankingException("End date cannot be before the start date", "INVALID_SCHEDULE");
+        }
+        // Fails with the usual not-found error before anything is stored
+        accountService.getMetadata(request.getTargetAccountNumber());
+        AccountMetadataCache.AccountMetadata source = accountService.getMetadata(request.getSourceAccountNumber());
+        if (!source.ownerId().equals(getCurrentUser().getId()) && !isAdmin()) {
+            throw new AccessDeniedException("Access denied: You can only set up standing orders from your own accounts");
+        }
+        // Each execution checks the account again, should it be deactivated on another node meanwhile
+        if (!source.active()) {
+            throw new BankingException("Cannot set up a standing order from an inactive account", "ACCOUNT_INACTIVE");
+        }
+
+        return shardRouter.onShard(shardRouter.shardForAccountNumber(request.getSourceAccountNumber()), false, () -> {
+            StandingOrder order = new StandingOrder();
+            order.setOwnerId(source.ownerId());
+            order.setSourceAccountNumber(request.getSourceAccountNumber());
+            order.setTargetAccountNumber(request.getTargetAccountNumber());
+            order.setAmount(request.getAmount());
+            order.setDescription(request.getDescription() != null ? request.getDescription() : "Standing order");
+            order.setFrequency(request.getFrequency());
+            order.setStartDate(request.getStartDate());
+            order.setEndDate(request.getEndDate());
+            order.setNextDueDate(request.getStartDate());
+            order.setNextRunAt(runAt(order, request.getStartDate()));
+            return new StandingOrderResponse(standingOrderRepository.save(order));
+        });
+    }
+
+    public List<StandingOrderResponse> getMyStandingOrders() {
+        return shardRouter.onEveryShard(() -> standingOrderRepository.findByOwnerIdOrderByIdAsc(getCurrentUser().getId())
+                        .stream()
+                        .map(StandingOrderResponse::new)
+                        .toList())
+                .stream()
+                .flatMap(Collection::stream)
+                .toList();
+    }
+
+    public StandingOrderResponse cancel(Long id) {
+        return shardRouter.onShard(shardRouter.shardForId(id), false, () -> {
+            StandingOrder order = standingOrderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Standing order not found"));
+            if (!order.getOwnerId().equals(getCurrentUser().getId()) && !isAdmin()) {
+                throw new AccessDeniedException("Access denied: You can only cancel your own standing orders");
+            }
+            if (order.getStatus() != StandingOrder.Status.ACTIVE) {
+                throw new BankingException("Standing order is already " + order.getStatus().name().toLowerCase(),
+                        "ORDER_NOT_ACTIVE");
+            }
+            // A conditional update rather than saving the entity, which would overwrite an execution in flight
+            standingOrderRepository.cancel(id, StandingOrder.Status.CANCELLED, StandingOrder.Status.ACTIVE);
+            StandingOrderResponse response = new StandingOrderResponse(order);
+            response.setStatus(StandingOrder.Status.CANCELLED);
+            return response;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${banking.standing-orders.poll-interval-ms:5000}",
+               initialDelayString = "${banking.standing-orders.poll-interval-ms:5000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executeDue();
+        } catch (RuntimeException e) {
+            logger.error("Standing order poll failed", e);
+        }
+    }
+
+    /**
+     * Claims and executes the orders due now, at most max-per-poll of them
+     * per shard. Returns how many were claimed.
+     */
+    public int executeDue() {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = 0;
+        try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads),
+                Thread.ofPlatform().name("standing-orders-", 0).factory())) {
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                int shardIndex = shard;
+                int shardClaimed = 0;
+                while (shardClaimed < maxPerPoll) {
+                    int limit = Math.min(batchSize, maxPerPoll - shardClaimed);
+                    List<Claim> batch = shardRouter.onShard(shard, false, () -> claim(shardIndex, now, limit));
+                    // Executed while the next batch is claimed
+                    batch.forEach(claim -> pool.submit(() -> execute(claim)));
+                    shardClaimed += batch.size();
+                    if (batch.size() < limit) {
+                        break;
+                    }
+                }
+                claimed += shardClaimed;
+            }
+        }
+        if (claimed > 0) {
+            logger.info("Claimed and ran {} due standing orders", claimed);
+        }
+        return claimed;
+    }
+
+    private List<Claim> claim(int shard, LocalDateTime now, int limit) {
+        List<StandingOrder> due = standingOrderRepository.findDueSkipLocked(StandingOrder.Status.ACTIVE, now,
+                PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> usernames = userRepository.findAllById(due.stream().map(StandingOrder::getOwnerId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, User::getUsername));
+        LocalDateTime leasedUntil = now.plusSeconds(leaseSeconds);
+        List<Claim> claims = new ArrayList<>(due.size());
+        for (StandingOrder order : due) {
+            // Written back on commit; until the lease runs out no poll selects the order again
+            order.setNextRunAt(leasedUntil);
+            LocalDate nextDueDate = order.occurrenceDate(order.getOccurrence() + 1);
+            TransferRequest request = new TransferRequest();
+            request.setSourceAccountNumber(order.getSourceAccountNumber());
+            request.setTargetAccountNumber(order.getTargetAccountNumber());
+            request.setAmount(order.getAmount());
+            request.setDescription(order.getDescription());
+            claims.add(new Claim(shard, order.getId(), order.getOccurrence(), order.getAttempts(),
+                    order.getNextDueDate(), nextDueDate, nextDueDate != null ? runAt(order, nextDueDate) : null,
+                    usernames.get(order.getOwnerId()), request));
+        }
+        return claims;
+    }
+
+    private void execute(Claim claim) {
+        try {
+            if (shardRouter.isCrossShard(claim.request().getSourceAccountNumber(), claim.request().getTargetAccountNumber())) {
+                if (!shardRouter.onShard(claim.shard(), false, () -> advance(claim, null))) {
+                    return;
+                }
+                runAs(claim.owner(), () -> transactionService.transfer(claim.request()));
+            } else {
+                boolean executed = shardRouter.onShard(claim.shard(), false, () -> {
+                    if (!advance(claim, null)) {
+                        return false;
+                    }
+                    runAs(claim.owner(), () -> transactionService.transfer(claim.request()));
+                    return true;
+                });
+                if (!executed) {
+                    return;
+                }
+            }
+            executedCounter.increment();
+            logger.debug("Standing order {} paid its occurrence of {}", claim.orderId(), claim.dueDate());
+        } catch (RuntimeException e) {
+            try {
+                shardRouter.onShard(claim.shard(), false, () -> recordFailure(claim, e));
+            } catch (RuntimeException recordingFailure) {
+                // The lease expires and the occurrence is attempted again
+                logger.error("Could not record the failure of standing order {}", claim.orderId(), recordingFailure);
+            }
+        }
+    }
+
+    private boolean advance(Claim claim, String error) {
+        StandingOrder.Status status = claim.nextDueDate() != null ? StandingOrder.Status.ACTIVE : StandingOrder.Status.COMPLETED;
+        return standingOrderRepository.advance(claim.orderId(), claim.occurrence(),
+                claim.nextDueDate() != null ? claim.nextDueDate() : claim.dueDate(),
+                claim.nextRunAt() != null ? claim.nextRunAt() : LocalDateTime.now(),
+                status, StandingOrder.Status.ACTIVE, error, LocalDateTime.now()) == 1;
+    }
+
+    private boolean recordFailure(Claim claim, RuntimeException e) {
+        String error = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        if (shardRouter.isCrossShard(claim.request().getSourceAccountNumber(), claim.request().getTargetAccountNumber())) {
+            // The order was moved on before the saga ran
+            standingOrderRepository.reopen(claim.orderId(), claim.occurrence(), claim.dueDate(),
+                    StandingOrder.Status.ACTIVE);
+        }
+        if (claim.attempts() + 1 < maxAttempts) {
+            retriedCounter.increment();
+            logger.warn("Standing order {} failed, retrying in {} minutes: {}", claim.orderId(), retryMinutes, error);
+            return standingOrderRepository.retryLater(claim.orderId(), claim.occurrence(), claim.attempts(),
+                    LocalDateTime.now().plusMinutes(retryMinutes), StandingOrder.Status.ACTIVE, error,
+                    LocalDateTime.now()) == 1;
+        }
+        missedCounter.increment();
+        logger.warn("Standing order {} missed its occurrence of {} after {} attempts: {}", claim.orderId(),
+                claim.dueDate(), maxAttempts, error);
+        return advance(claim, truncate("Missed " + claim.dueDate() + ": " + error));
+    }
+
+    // Spreads the orders of one day over the spread window; fixed per order so its runs stay evenly spaced
+    private LocalDateTime runAt(StandingOrder order, LocalDate dueDate) {
+        int spreadSeconds = Math.max(1, spreadMinutes * 60);
+        int hash = (order.getSourceAccountNumber() + ">" + order.getTargetAccountNumber()).hashCode() * 0x9E3779B9;
+        return dueDate.atTime(executionTime).plusSeconds(Math.floorMod(hash, spreadSeconds));
+    }
+
+    private <T> T runAs(String username, Supplier<T> work) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+        SecurityContextHolder.setContext(context);
+        try {
+            return work.get();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("banking.standing-orders.executions")
+                .description("Standing order execution attempts by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isEmpty() && shardRouter.replicateUser(username)) {
+            // Newly registered users may not have reached this shard yet
+            user = userRepository.findByUsername(username);
+        }
+        return user.orElseThrow(() -> new RuntimeException("Current user not found"));
+    }
+
+    private boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getAuthorities().stream()
+                .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    /**
+     * One claimed occurrence. nextDueDate and nextRunAt are null when it is
+     * the order's last.
+     */
+    private record Claim(int shard, Long orderId, int occurrence, int attempts, LocalDate dueDate,
+                         LocalDate nextDueDate, LocalDateTime nextRunAt, String owner, TransferRequest request) {
+    }
+}
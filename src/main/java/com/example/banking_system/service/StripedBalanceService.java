@@ -0,0 +1,181 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.AccountStripe;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.AccountStripeRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Balance striping for accounts that are debited and credited concurrently at
+ * high rates, such as treasury accounts.
+ *
+ * A striped account keeps its balance in K account_stripes rows and a zero
+ * Account.balance. Like LongAdder, each posting picks a stripe from a hash of
+ * the current thread, so concurrent postings mostly lock different rows. A
+ * credit is a single UPDATE of its stripe. A debit locks its stripe and only
+ * borrows from the others when that stripe cannot cover the amount, first
+ * from the stripes nobody holds, then from the rest only if they have been
+ * released meanwhile. A debit never waits for a second stripe while holding
+ * its own, since two such debits would wait for each other; when the money
+ * it needs is behind in-flight postings it fails with a retryable 409.
+ *
+ * Stripe locks are always taken after any account row locks of the same
+ * posting, so the account-number lock order of TransactionService still holds.
+ */
+@Service
+public class StripedBalanceService {
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository stripeRepository;
+    private final ShardRouter shardRouter;
+    private final AccountMetadataCache metadataCache;
+
+    @Value("${banking.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    public StripedBalanceService(AccountRepository accountRepository,
+                                 AccountStripeRepository stripeRepository,
+                                 ShardRouter shardRouter,
+                                 AccountMetadataCache metadataCache) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+        this.shardRouter = shardRouter;
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * The account's balance whether or not it is striped.
+     */
+    public BigDecimal balanceOf(Account account) {
+        if (account.getPostingMode() != Account.PostingMode.STRIPED) {
+            return account.getBalance();
+        }
+        return stripeRepository.sumBalanceByAccountId(account.getId());
+    }
+
+    public void credit(Account account, BigDecimal amount) {
+        if (stripeRepository.addToStripe(account.getId(), pickStripe(account), amount) == 0) {
+            throw stripingChanged(account);
+        }
+    }
+
+    /**
+     * Debits a striped account. Returns false, leaving the total untouched,
+     * when all stripes together cannot cover the amount.
+     */
+    public boolean tryDebit(Account account, BigDecimal amount) {
+        int index = pickStripe(account);
+        AccountStripe local = stripeRepository.findStripeForUpdate(account.getId(), index)
+                .orElseThrow(() -> stripingChanged(account));
+
+        if (local.getBalance().compareTo(amount) < 0) {
+            BigDecimal missing = amount.subtract(local.getBalance());
+            missing = borrow(local, stripeRepository.findOtherStripesSkipLocked(account.getId(), index), missing);
+            if (missing.signum() > 0) {
+                missing = borrowFromHeldStripes(account, local, index, amount, missing);
+            }
+            if (missing.signum() > 0) {
+                return false;
+            }
+        }
+        local.setBalance(local.getBalance().subtract(amount));
+        stripeRepository.save(local);
+        return true;
+    }
+
+    /**
+     * Spreads the balance over the given number of stripes, or folds it back
+     * into the account row when stripes is one or less.
+     */
+    @Transactional
+    public Account setStripeCount(Long accountId, int stripes) {
+        shardRouter.bindAccountId(accountId);
+        Account account = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new RuntimeException("Account not found"));
+        if (Boolean.TRUE.equals(account.getHotAccount())) {
+            throw new BankingException("Hot accounts cannot be striped", "ACCOUNT_HOT");
+        }
+        if (stripes > 1 && engineEnabled) {
+            throw new BankingException("Balances are not striped while the posting engine is on", "ENGINE_ENABLED", 409);
+        }
+
+        List<AccountStripe> existing = stripeRepository.findAllForUpdate(accountId);
+        BigDecimal total = existing.stream()
+                .map(AccountStripe::getBalance)
+                .reduce(account.getBalance(), BigDecimal::add);
+        stripeRepository.deleteAllInBatch(existing);
+        metadataCache.evict(account.getAccountNumber());
+
+        if (stripes <= 1) {
+            account.setBalance(total);
+            account.setStripeCount(null);
+            return accountRepository.save(account);
+        }
+
+        // Even split; the cents that do not divide go to stripe 0
+        BigDecimal share = total.divide(BigDecimal.valueOf(stripes), 2, RoundingMode.DOWN);
+        BigDecimal remainder = total.subtract(share.multiply(BigDecimal.valueOf(stripes)));
+        for (int i = 0; i < stripes; i++) {
+            AccountStripe stripe = new AccountStripe();
+            stripe.setAccountId(accountId);
+            stripe.setStripeIndex(i);
+            stripe.setBalance(i == 0 ? share.add(remainder) : share);
+            stripeRepository.save(stripe);
+        }
+        account.setBalance(BigDecimal.ZERO);
+        account.setStripeCount(stripes);
+        return accountRepository.save(account);
+    }
+
+    // The rest is behind in-flight postings: take it only if they have finished, never wait for it
+    private BigDecimal borrowFromHeldStripes(Account account, AccountStripe local, int index, BigDecimal amount,
+                                             BigDecimal missing) {
+        try {
+            return borrow(local, stripeRepository.findOtherStripesNoWait(account.getId(), index), missing);
+        } catch (PessimisticLockingFailureException e) {
+            // The committed total tells a short balance from one that is only busy
+            if (stripeRepository.sumBalanceByAccountId(account.getId()).compareTo(amount) < 0) {
+                return missing;
+            }
+            throw new BankingException("Account balance is held by postings in progress, please retry",
+                    "ACCOUNT_BUSY", 409);
+        }
+    }
+
+    private BigDecimal borrow(AccountStripe local, List<AccountStripe> donors, BigDecimal missing) {
+        for (AccountStripe donor : donors) {
+            if (missing.signum() <= 0) {
+                break;
+            }
+            BigDecimal taken = donor.getBalance().min(missing);
+            if (taken.signum() > 0) {
+                donor.setBalance(donor.getBalance().subtract(taken));
+                local.setBalance(local.getBalance().add(taken));
+                missing = missing.subtract(taken);
+            }
+        }
+        return missing;
+    }
+
+    private static int pickStripe(Account account) {
+        // Fibonacci hashing spreads the sequential ids of request threads over the stripes
+        long hash = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash >>> 32, (long) account.getStripeCount());
+    }
+
+    // The posting went by a cached mode; drop it so the retry reads the new one
+    private BankingException stripingChanged(Account account) {
+        metadataCache.evict(account.getAccountNumber());
+        return new BankingException("Account striping changed during the posting, please retry", "ACCOUNT_STRIPING_CHANGED", 409);
+    }
+}
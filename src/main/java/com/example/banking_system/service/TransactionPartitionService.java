@@ -0,0 +1,377 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.entity.TransactionArchive;
+import com.example.banking_system.repository.TransactionArchiveRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the transactions table split into monthly partitions and moves cold
+ * months to gzip-compressed CSV archives.
+ *
+ * On PostgreSQL, once the table has been converted with
+ * db/postgresql/partition-transactions.sql, partitions are created ahead of
+ * time and an archived month is detached and dropped, which is a metadata
+ * operation instead of a mass delete. Other databases (H2) keep a single table;
+ * maintenance is skipped there and archived months are removed by a batched
+ * range delete. Every archive is recorded in transaction_archives.
+ */
+@Service
+public class TransactionPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{4})_(\\d{2})");
+    private static final String ADVISORY_LOCK = "banking.transactions.archive";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionArchiveRepository archiveRepository;
+    private final ShardRouter shardRouter;
+    // Keeps the nightly job and an admin-triggered run on this node from archiving the same month twice
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    @Value("${banking.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${banking.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${banking.archive.after-months:24}")
+    private int archiveAfterMonths;
+
+    @Value("${banking.archive.directory:./archive}")
+    private String archiveDirectory;
+
+    @Value("${banking.archive.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    public TransactionPartitionService(DataSource dataSource,
+                                       TransactionArchiveRepository archiveRepository,
+                                       ShardRouter shardRouter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.archiveRepository = archiveRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            createUpcomingPartitions();
+        }
+    }
+
+    @Scheduled(cron = "${banking.partitioning.maintenance-cron:0 15 2 * * *}")
+    public void runMaintenance() {
+        if (!enabled) {
+            return;
+        }
+        createUpcomingPartitions();
+        if (archiveEnabled) {
+            archiveColdMonths();
+        }
+    }
+
+    /**
+     * Makes sure the current month and the next months-ahead months have a
+     * partition, so inserts never fall through to the default partition.
+     */
+    public void createUpcomingPartitions() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            shardRouter.withShard(shard, () -> {
+                if (isPartitioned()) {
+                    YearMonth current = YearMonth.now();
+                    for (int i = 0; i <= monthsAhead; i++) {
+                        createPartition(current.plusMonths(i));
+                    }
+                } else if (isPostgreSql()) {
+                    logger.warn("transactions is not partitioned; run db/postgresql/partition-transactions.sql to enable monthly partitions");
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Archives every month that ended more than after-months ago and removes
+     * it from the live table. Returns the archives written by this run, which
+     * is none when another node is archiving.
+     */
+    public List<TransactionArchive> archiveColdMonths() {
+        maintenanceLock.lock();
+        try {
+            // Every node runs the nightly job; on PostgreSQL a session advisory lock on the first shard
+            // lets only one of them archive, and is released with the session if that node dies
+            return shardRouter.withShard(0, () -> isPostgreSql()
+                    ? jdbcTemplate.execute((ConnectionCallback<List<TransactionArchive>>) this::archiveUnderAdvisoryLock)
+                    : archiveEveryShard());
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private List<TransactionArchive> archiveUnderAdvisoryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(hashtext('" + ADVISORY_LOCK + "'))")) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    logger.info("Another node is archiving transactions; skipping this run");
+                    return List.of();
+                }
+            }
+            try {
+                return archiveEveryShard();
+            } finally {
+                statement.execute("SELECT pg_advisory_unlock(hashtext('" + ADVISORY_LOCK + "'))");
+            }
+        }
+    }
+
+    private List<TransactionArchive> archiveEveryShard() {
+        List<TransactionArchive> written = new ArrayList<>();
+        YearMonth cutoff = YearMonth.now().minusMonths(archiveAfterMonths);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int currentShard = shard;
+            List<YearMonth> months = shardRouter.withShard(shard, () -> findColdMonths(cutoff));
+            for (YearMonth month : months) {
+                written.add(archiveMonth(currentShard, month));
+            }
+        }
+        return written;
+    }
+
+    public List<TransactionArchive> getArchives() {
+        return shardRouter.onEveryShard(archiveRepository::findAllByOrderByPeriodStartDesc).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private TransactionArchive archiveMonth(int shard, YearMonth month) {
+        boolean partitioned = shardRouter.withShard(shard, this::isPartitioned);
+        // A partition holds exactly one month, so it is exported without a range scan of the parent
+        String source = partitioned ? partitionName(month) : "transactions";
+
+        Path file = Paths.get(archiveDirectory, "shard-" + shard, partitionName(month) + ".csv.gz");
+        ExportResult export = shardRouter.onShard(shard, true, () -> export(source, month, file));
+
+        TransactionArchive archive = shardRouter.onShard(shard, false, () -> {
+            TransactionArchive entry = archiveRepository.findByPeriodStart(month.atDay(1))
+                    .orElseGet(TransactionArchive::new);
+            entry.setPeriodStart(month.atDay(1));
+            entry.setLocation(file.toAbsolutePath().toString());
+            entry.setRowCount(export.rowCount());
+            entry.setSha256(export.sha256());
+            return archiveRepository.save(entry);
+        });
+
+        // Only drop the rows once the archive and its manifest entry are durable
+        if (partitioned) {
+            shardRouter.withShard(shard, () -> dropPartition(source));
+        } else {
+            shardRouter.withShard(shard, () -> deleteMonth(month));
+        }
+        logger.info("Archived {} transactions of {} on shard {} to {}", export.rowCount(), month, shard, file);
+        return archive;
+    }
+
+    private ExportResult export(String table, YearMonth month, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path partial = file.resolveSibling(file.getFileName() + ".partial");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long rows;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(partial), digest);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out, 64 * 1024),
+                         StandardCharsets.UTF_8))) {
+                rows = writeCsv(writer, table, month);
+            }
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new ExportResult(rows, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write transaction archive " + file, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long writeCsv(Writer writer, String table, YearMonth month) {
+        long[] rows = {0};
+        jdbcTemplate.query("SELECT * FROM " + table + " WHERE timestamp >= ? AND timestamp < ? ORDER BY id",
+                rs -> {
+                    try {
+                        ResultSetMetaData meta = rs.getMetaData();
+                        int columns = meta.getColumnCount();
+                        if (rows[0] == 0) {
+                            for (int i = 1; i <= columns; i++) {
+                                writer.write((i > 1 ? "," : "") + meta.getColumnLabel(i).toLowerCase());
+                            }
+                            writer.write('\n');
+                        }
+                        for (int i = 1; i <= columns; i++) {
+                            if (i > 1) {
+                                writer.write(',');
+                            }
+                            writer.write(csvValue(rs.getString(i)));
+                        }
+                        writer.write('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+        return rows[0];
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private List<YearMonth> findColdMonths(YearMonth cutoff) {
+        List<YearMonth> months = new ArrayList<>();
+        if (isPartitioned()) {
+            for (String name : listPartitions()) {
+                Matcher matcher = PARTITION_NAME.matcher(name);
+                if (matcher.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                    if (month.isBefore(cutoff)) {
+                        months.add(month);
+                    }
+                }
+            }
+            months.sort(null);
+            return months;
+        }
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM transactions", Timestamp.class);
+        if (oldest != null) {
+            for (YearMonth month = YearMonth.from(oldest.toLocalDateTime()); month.isBefore(cutoff); month = month.plusMonths(1)) {
+                months.add(month);
+            }
+        }
+        return months;
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF transactions " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        } catch (RuntimeException e) {
+            // Typically rows for this month already sit in the default partition
+            logger.error("Cannot create partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private Void dropPartition(String name) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // Detaching briefly locks the parent; give up rather than queue behind long-running postings
+                statement.execute("SET lock_timeout = '5s'");
+                try {
+                    statement.execute("ALTER TABLE transactions DETACH PARTITION " + name);
+                    statement.execute("DROP TABLE " + name);
+                } finally {
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            return null;
+        });
+        return null;
+    }
+
+    private Void deleteMonth(YearMonth month) {
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        // Small batches keep each delete transaction and its locks short
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM transactions WHERE id IN (SELECT id FROM transactions " +
+                    "WHERE timestamp >= ? AND timestamp < ? ORDER BY id LIMIT " + deleteBatchSize + ")", from, to);
+        } while (deleted > 0);
+        return null;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'transactions'", String.class);
+    }
+
+    private boolean isPartitioned() {
+        if (!isPostgreSql()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = 'transactions'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private boolean isPostgreSql() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("transactions_p%d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private record ExportResult(long rowCount, String sha256) {
+    }
+}
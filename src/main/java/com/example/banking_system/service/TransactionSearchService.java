@@ -0,0 +1,192 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.TransactionSpecifications;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filtered, newest-first search over every transaction for operations staff.
+ *
+ * Every search is bounded by a date range of at most max-range-days, so a
+ * query walks at most that slice of the timestamp indexes (and, on a
+ * partitioned table, only the partitions it covers) however loose its other
+ * filters are. Pages are keyset pages: the cursor is the timestamp and id of
+ * the last row returned, so a deep page costs the same as the first. Each
+ * statement is cancelled after timeout-seconds. With sharding every shard is
+ * searched and the pages are merged.
+ */
+@Service
+public class TransactionSearchService {
+
+    private static final int DESCRIPTION_MIN_LENGTH = 3;
+    private static final Comparator<TransactionResponse> NEWEST_FIRST = Comparator
+            .comparing(TransactionResponse::getTimestamp)
+            .thenComparing(TransactionResponse::getId)
+            .reversed();
+
+    private final ShardRouter shardRouter;
+    private final Timer searchTimer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${banking.transactions.search.default-range-days:7}")
+    private int defaultRangeDays;
+
+    @Value("${banking.transactions.search.max-range-days:92}")
+    private int maxRangeDays;
+
+    @Value("${banking.transactions.search.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${banking.transactions.search.timeout-seconds:5}")
+    private int timeoutSeconds;
+
+    public TransactionSearchService(ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.searchTimer = Timer.builder("banking.transactions.search")
+                .description("Time to answer an admin transaction search")
+                .register(meterRegistry);
+    }
+
+    public record Criteria(LocalDateTime from, LocalDateTime to,
+                           Collection<Transaction.TransactionType> types,
+                           Collection<Transaction.TransactionStatus> statuses,
+                           BigDecimal minAmount, BigDecimal maxAmount,
+                           String description, String cursor, int size) {
+    }
+
+    /**
+     * A page of results; nextCursor fetches the following page and is null on the last one.
+     */
+    public record SearchPage(List<TransactionResponse> content, LocalDateTime from, LocalDateTime to,
+                             String nextCursor) {
+    }
+
+    public SearchPage search(Criteria criteria) {
+        LocalDateTime to = criteria.to() != null ? criteria.to() : LocalDateTime.now();
+        LocalDateTime from = criteria.from() != null ? criteria.from() : to.minusDays(defaultRangeDays);
+        if (!from.isBefore(to)) {
+            throw new BankingException("The search range must end after it starts", "INVALID_RANGE");
+        }
+        if (Duration.between(from, to).compareTo(Duration.ofDays(maxRangeDays)) > 0) {
+            throw new BankingException("The search range cannot be longer than " + maxRangeDays + " days",
+                    "INVALID_RANGE");
+        }
+        if (criteria.minAmount() != null && criteria.maxAmount() != null
+                && criteria.minAmount().compareTo(criteria.maxAmount()) > 0) {
+            throw new BankingException("The minimum amount cannot exceed the maximum", "INVALID_AMOUNT");
+        }
+        String description = criteria.description() != null ? criteria.description().trim() : null;
+        if (description != null && !description.isEmpty() && description.length() < DESCRIPTION_MIN_LENGTH) {
+            throw new BankingException("Description search needs at least " + DESCRIPTION_MIN_LENGTH + " characters",
+                    "INVALID_QUERY");
+        }
+        int size = Math.max(1, Math.min(criteria.size(), maxPageSize));
+
+        List<Specification<Transaction>> filters = new ArrayList<>();
+        filters.add(TransactionSpecifications.timestampBetween(from, to));
+        if (criteria.cursor() != null && !criteria.cursor().isBlank()) {
+            Cursor cursor = Cursor.decode(criteria.cursor());
+            filters.add(TransactionSpecifications.before(cursor.timestamp(), cursor.id()));
+        }
+        if (criteria.types() != null && !criteria.types().isEmpty()) {
+            filters.add(TransactionSpecifications.typeIn(criteria.types()));
+        }
+        if (criteria.statuses() != null && !criteria.statuses().isEmpty()) {
+            filters.add(TransactionSpecifications.statusIn(criteria.statuses()));
+        }
+        if (criteria.minAmount() != null) {
+            filters.add(TransactionSpecifications.amountAtLeast(criteria.minAmount()));
+        }
+        if (criteria.maxAmount() != null) {
+            filters.add(TransactionSpecifications.amountAtMost(criteria.maxAmount()));
+        }
+        if (description != null && !description.isEmpty()) {
+            filters.add(TransactionSpecifications.descriptionContains(description));
+        }
+        Specification<Transaction> specification = Specification.allOf(filters);
+
+        return searchTimer.record(() -> {
+            // One row past the page tells whether there is another
+            List<TransactionResponse> rows = shardRouter.onEveryShard(() -> fetch(specification, size + 1))
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted(NEWEST_FIRST)
+                    .limit(size + 1)
+                    .toList();
+            List<TransactionResponse> page = rows.size() > size ? rows.subList(0, size) : rows;
+            String nextCursor = rows.size() > size ? Cursor.encode(page.get(size - 1)) : null;
+            return new SearchPage(page, from, to, nextCursor);
+        });
+    }
+
+    private List<TransactionResponse> fetch(Specification<Transaction> specification, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = cb.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        root.fetch("sourceAccount", JoinType.LEFT);
+        root.fetch("targetAccount", JoinType.LEFT);
+        query.select(root)
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("timestamp")), cb.desc(root.get("id")));
+        try {
+            return entityManager.createQuery(query)
+                    .setMaxResults(limit)
+                    .setHint("jakarta.persistence.query.timeout", timeoutSeconds * 1000)
+                    .getResultStream()
+                    .map(TransactionResponse::new)
+                    .toList();
+        } catch (QueryTimeoutException | org.hibernate.QueryTimeoutException e) {
+            throw new BankingException("The search took longer than " + timeoutSeconds
+                    + " seconds; narrow the date range or add filters", "SEARCH_TIMEOUT", 503);
+        }
+    }
+
+    /**
+     * Position after the last row of a page, passed back as an opaque string.
+     */
+    private record Cursor(LocalDateTime timestamp, Long id) {
+
+        private static String encode(TransactionResponse last) {
+            String value = last.getTimestamp() + "|" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.indexOf('|');
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new BankingException("Invalid search cursor", "INVALID_CURSOR");
+            }
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.example.banking_system.service;
 
 import com.example.banking_system.dto.*;
+import com.example.banking_system.engine.PostingEngine;
+import com.example.banking_system.engine.PostingReceipt;
 import com.example.banking_system.entity.Account;
 import com.example.banking_system.entity.Transaction;
 import com.example.banking_system.entity.User;
+import com.example.banking_system.event.TransactionCompletedEvent;
+import com.example.banking_system.exception.AccessDeniedException;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.exception.InsufficientFundsException;
+import com.example.banking_system.metrics.TransactionMetrics;
+import com.example.banking_system.metrics.jfr.PostingBalanceCheckEvent;
+import com.example.banking_system.metrics.jfr.PostingCommitEvent;
+import com.example.banking_system.metrics.jfr.PostingEvent;
+import com.example.banking_system.metrics.jfr.PostingLockWaitEvent;
+import com.example.banking_system.metrics.jfr.PostingPersistEvent;
 import com.example.banking_system.repository.AccountRepository;
 import com.example.banking_system.repository.TransactionRepository;
 import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.sharding.CrossShardTransferCoordinator;
+import com.example.banking_system.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -16,7 +35,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -26,30 +51,69 @@ public class TransactionService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final AccountService accountService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final CrossShardTransferCoordinator crossShardTransferCoordinator;
+    private final TransactionMetrics metrics;
+    private final HotAccountService hotAccountService;
+    private final StripedBalanceService stripedBalanceService;
+    // Present only with banking.engine.enabled; postings then go through it instead of the account rows
+    private final PostingEngine postingEngine;
     
     public TransactionService(TransactionRepository transactionRepository,
                              AccountRepository accountRepository,
                              UserRepository userRepository,
-                             AccountService accountService) {
+                             AccountService accountService,
+                             ApplicationEventPublisher eventPublisher,
+                             ShardRouter shardRouter,
+                             CrossShardTransferCoordinator crossShardTransferCoordinator,
+                             TransactionMetrics metrics,
+                             HotAccountService hotAccountService,
+                             StripedBalanceService stripedBalanceService,
+                             ObjectProvider<PostingEngine> postingEngine) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
         this.accountService = accountService;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.crossShardTransferCoordinator = crossShardTransferCoordinator;
+        this.metrics = metrics;
+        this.hotAccountService = hotAccountService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.postingEngine = postingEngine.getIfAvailable();
     }
     
     @Transactional
     public TransactionResponse deposit(DepositRequest request) {
-        // Find target account
-        Account targetAccount = accountService.findByAccountNumber(request.getAccountNumber());
+        return metrics.recordPosting(TransactionMetrics.Operation.DEPOSIT, request.getAmount(), () -> doDeposit(request));
+    }
+    
+    private TransactionResponse doDeposit(DepositRequest request) {
+        shardRouter.bindAccountNumber(request.getAccountNumber());
+        if (postingEngine != null) {
+            return engineDeposit(request);
+        }
         
-        User currentUser = getCurrentUser();
-        if (!hasAccountAccess(targetAccount, currentUser)) {
-            throw new RuntimeException("Access denied: Only account owner, admin, or teller can deposit");
+        // Requests that would be refused are turned away from the cached metadata, before any lock
+        AccountMetadataCache.AccountMetadata target = accountService.getMetadata(request.getAccountNumber());
+        if (!hasAccountAccess(target.ownerId(), getCurrentUser())) {
+            throw new AccessDeniedException("Access denied: Only account owner, admin, or teller can deposit");
+        }
+        if (!target.active()) {
+            throw new BankingException("Cannot deposit to inactive account", "ACCOUNT_INACTIVE");
         }
         
-        // Verify account is active
+        // Find and lock target account; hot and striped accounts are credited without the row lock
+        Account.PostingMode mode = target.postingMode();
+        PostingEvent lockWait = PostingEvent.begin(new PostingLockWaitEvent());
+        Account targetAccount = loadForPosting(request.getAccountNumber(), mode == Account.PostingMode.STANDARD);
+        mode = postingMode(targetAccount, mode, mode == Account.PostingMode.STANDARD);
+        lockWait.finish("deposit", targetAccount.getId(), null, request.getAmount());
+        
+        // The cached flag may lag a deactivation on another node
         if (!targetAccount.getIsActive()) {
-            throw new RuntimeException("Cannot deposit to inactive account");
+            throw new BankingException("Cannot deposit to inactive account", "ACCOUNT_INACTIVE");
         }
         
         // Create transaction
@@ -61,16 +125,24 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.PENDING);
         
         try {
+            PostingEvent persist = PostingEvent.begin(new PostingPersistEvent());
             // Update account balance
-            BigDecimal newBalance = targetAccount.getBalance().add(request.getAmount());
-            targetAccount.setBalance(newBalance);
-            accountRepository.save(targetAccount);
+            credit(targetAccount, mode, request.getAmount(), transaction);
             
             // Complete transaction
             transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
             Transaction savedTransaction = transactionRepository.save(transaction);
+            persist.finish("deposit", targetAccount.getId(), null, request.getAmount());
+            PostingCommitEvent.onCommit("deposit", targetAccount.getId(), null, request.getAmount());
             
-            return new TransactionResponse(savedTransaction);
+            TransactionResponse response = new TransactionResponse(savedTransaction);
+            // Only a standard account's row holds its current balance, so only that one is pushed
+            if (mode == Account.PostingMode.STANDARD) {
+                publishCompleted(response, targetAccount);
+            } else {
+                publishCompleted(response);
+            }
+            return response;
         } catch (Exception e) {
             transaction.setStatus(Transaction.TransactionStatus.FAILED);
             transactionRepository.save(transaction);
@@ -80,22 +152,42 @@ public class TransactionService {
     
     @Transactional
     public TransactionResponse withdraw(WithdrawRequest request) {
-        // Find source account
-        Account sourceAccount = accountService.findByAccountNumber(request.getAccountNumber());
+        return metrics.recordPosting(TransactionMetrics.Operation.WITHDRAW, request.getAmount(), () -> doWithdraw(request));
+    }
+    
+    private TransactionResponse doWithdraw(WithdrawRequest request) {
+        shardRouter.bindAccountNumber(request.getAccountNumber());
+        if (postingEngine != null) {
+            return engineWithdraw(request);
+        }
         
-        User currentUser = getCurrentUser();
-        if (!hasAccountAccess(sourceAccount, currentUser)) {
-            throw new RuntimeException("Access denied: Only account owner, admin, or teller can withdraw");
+        // Requests that would be refused are turned away from the cached metadata, before any lock
+        AccountMetadataCache.AccountMetadata source = accountService.getMetadata(request.getAccountNumber());
+        if (!hasAccountAccess(source.ownerId(), getCurrentUser())) {
+            throw new AccessDeniedException("Access denied: Only account owner, admin, or teller can withdraw");
+        }
+        if (!source.active()) {
+            throw new BankingException("Cannot withdraw from inactive account", "ACCOUNT_INACTIVE");
         }
         
-        // Verify account is active
+        // Find and lock source account; striped accounts lock a stripe at the balance check instead
+        Account.PostingMode mode = source.postingMode();
+        PostingEvent lockWait = PostingEvent.begin(new PostingLockWaitEvent());
+        Account sourceAccount = loadForPosting(request.getAccountNumber(), mode != Account.PostingMode.STRIPED);
+        mode = postingMode(sourceAccount, mode, mode != Account.PostingMode.STRIPED);
+        lockWait.finish("withdraw", sourceAccount.getId(), null, request.getAmount());
+        
+        // The cached flag may lag a deactivation on another node
         if (!sourceAccount.getIsActive()) {
-            throw new RuntimeException("Cannot withdraw from inactive account");
+            throw new BankingException("Cannot withdraw from inactive account", "ACCOUNT_INACTIVE");
         }
         
         // Check sufficient funds
-        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient funds");
+        PostingEvent balanceCheck = PostingEvent.begin(new PostingBalanceCheckEvent());
+        boolean sufficientFunds = checkAndDebit(sourceAccount, mode, request.getAmount());
+        balanceCheck.finish("withdraw", sourceAccount.getId(), null, request.getAmount());
+        if (!sufficientFunds) {
+            throw new InsufficientFundsException("Insufficient funds");
         }
         
         // Create transaction
@@ -107,16 +199,27 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.PENDING);
         
         try {
-            // Update account balance
-            BigDecimal newBalance = sourceAccount.getBalance().subtract(request.getAmount());
-            sourceAccount.setBalance(newBalance);
-            accountRepository.save(sourceAccount);
+            PostingEvent persist = PostingEvent.begin(new PostingPersistEvent());
+            // Update account balance; a striped account was already debited by the balance check
+            if (mode != Account.PostingMode.STRIPED) {
+                BigDecimal newBalance = sourceAccount.getBalance().subtract(request.getAmount());
+                sourceAccount.setBalance(newBalance);
+                accountRepository.save(sourceAccount);
+            }
             
             // Complete transaction
             transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
             Transaction savedTransaction = transactionRepository.save(transaction);
+            persist.finish("withdraw", sourceAccount.getId(), null, request.getAmount());
+            PostingCommitEvent.onCommit("withdraw", sourceAccount.getId(), null, request.getAmount());
             
-            return new TransactionResponse(savedTransaction);
+            TransactionResponse response = new TransactionResponse(savedTransaction);
+            if (mode == Account.PostingMode.STRIPED) {
+                publishCompleted(response);
+            } else {
+                publishCompleted(response, sourceAccount);
+            }
+            return response;
         } catch (Exception e) {
             transaction.setStatus(Transaction.TransactionStatus.FAILED);
             transactionRepository.save(transaction);
@@ -126,28 +229,62 @@ public class TransactionService {
     
     @Transactional
     public TransactionResponse transfer(TransferRequest request) {
+        return metrics.recordPosting(TransactionMetrics.Operation.TRANSFER, request.getAmount(), () -> doTransfer(request));
+    }
+    
+    private TransactionResponse doTransfer(TransferRequest request) {
         // Validate source and target accounts are different
         if (request.getSourceAccountNumber().equals(request.getTargetAccountNumber())) {
             throw new RuntimeException("Source and target accounts cannot be the same");
         }
         
-        // Find accounts
-        Account sourceAccount = accountService.findByAccountNumber(request.getSourceAccountNumber());
-        Account targetAccount = accountService.findByAccountNumber(request.getTargetAccountNumber());
+        if (shardRouter.isCrossShard(request.getSourceAccountNumber(), request.getTargetAccountNumber())) {
+            return crossShardTransfer(request);
+        }
+        shardRouter.bindAccountNumber(request.getSourceAccountNumber());
+        if (postingEngine != null) {
+            return engineTransfer(request);
+        }
         
-        User currentUser = getCurrentUser();
-        if (!sourceAccount.getUser().getId().equals(currentUser.getId()) && !isAdmin()) {
-            throw new RuntimeException("Access denied: You can only transfer from your own accounts");
+        // Requests that would be refused are turned away from the cached metadata, before any lock
+        AccountMetadataCache.AccountMetadata source = accountService.getMetadata(request.getSourceAccountNumber());
+        AccountMetadataCache.AccountMetadata target = accountService.getMetadata(request.getTargetAccountNumber());
+        if (!source.ownerId().equals(getCurrentUser().getId()) && !isAdmin()) {
+            throw new AccessDeniedException("Access denied: You can only transfer from your own accounts");
+        }
+        if (!source.active() || !target.active()) {
+            throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
         }
         
-        // Verify both accounts are active
+        // Lock the account rows in account number order so opposing transfers cannot deadlock.
+        // Hot targets and striped accounts are posted without their row lock.
+        Account.PostingMode sourceMode = source.postingMode();
+        Account.PostingMode targetMode = target.postingMode();
+        boolean lockSource = sourceMode != Account.PostingMode.STRIPED;
+        boolean lockTarget = targetMode == Account.PostingMode.STANDARD;
+        PostingEvent lockWait = PostingEvent.begin(new PostingLockWaitEvent());
+        boolean sourceFirst = request.getSourceAccountNumber().compareTo(request.getTargetAccountNumber()) < 0;
+        Account first = loadForPosting(sourceFirst ? request.getSourceAccountNumber() : request.getTargetAccountNumber(),
+                sourceFirst ? lockSource : lockTarget);
+        Account second = loadForPosting(sourceFirst ? request.getTargetAccountNumber() : request.getSourceAccountNumber(),
+                sourceFirst ? lockTarget : lockSource);
+        Account sourceAccount = sourceFirst ? first : second;
+        Account targetAccount = sourceFirst ? second : first;
+        sourceMode = postingMode(sourceAccount, sourceMode, lockSource);
+        targetMode = postingMode(targetAccount, targetMode, lockTarget);
+        lockWait.finish("transfer", sourceAccount.getId(), targetAccount.getId(), request.getAmount());
+        
+        // The cached flags may lag a deactivation on another node
         if (!sourceAccount.getIsActive() || !targetAccount.getIsActive()) {
-            throw new RuntimeException("Cannot transfer to/from inactive accounts");
+            throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
         }
         
         // Check sufficient funds
-        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient funds");
+        PostingEvent balanceCheck = PostingEvent.begin(new PostingBalanceCheckEvent());
+        boolean sufficientFunds = checkAndDebit(sourceAccount, sourceMode, request.getAmount());
+        balanceCheck.finish("transfer", sourceAccount.getId(), targetAccount.getId(), request.getAmount());
+        if (!sufficientFunds) {
+            throw new InsufficientFundsException("Insufficient funds");
         }
         
         // Create transaction
@@ -160,21 +297,31 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.PENDING);
         
         try {
-            // Update account balances atomically
-            BigDecimal sourceNewBalance = sourceAccount.getBalance().subtract(request.getAmount());
-            BigDecimal targetNewBalance = targetAccount.getBalance().add(request.getAmount());
-            
-            sourceAccount.setBalance(sourceNewBalance);
-            targetAccount.setBalance(targetNewBalance);
-            
-            accountRepository.save(sourceAccount);
-            accountRepository.save(targetAccount);
+            PostingEvent persist = PostingEvent.begin(new PostingPersistEvent());
+            // Update account balances atomically; a striped source was already debited by the balance check
+            if (sourceMode != Account.PostingMode.STRIPED) {
+                BigDecimal sourceNewBalance = sourceAccount.getBalance().subtract(request.getAmount());
+                sourceAccount.setBalance(sourceNewBalance);
+                accountRepository.save(sourceAccount);
+            }
+            credit(targetAccount, targetMode, request.getAmount(), transaction);
             
             // Complete transaction
             transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
             Transaction savedTransaction = transactionRepository.save(transaction);
+            persist.finish("transfer", sourceAccount.getId(), targetAccount.getId(), request.getAmount());
+            PostingCommitEvent.onCommit("transfer", sourceAccount.getId(), targetAccount.getId(), request.getAmount());
             
-            return new TransactionResponse(savedTransaction);
+            TransactionResponse response = new TransactionResponse(savedTransaction);
+            List<Account> changed = new ArrayList<>(2);
+            if (sourceMode != Account.PostingMode.STRIPED) {
+                changed.add(sourceAccount);
+            }
+            if (targetMode == Account.PostingMode.STANDARD) {
+                changed.add(targetAccount);
+            }
+            publishCompleted(response, changed.toArray(Account[]::new));
+            return response;
         } catch (Exception e) {
             transaction.setStatus(Transaction.TransactionStatus.FAILED);
             transactionRepository.save(transaction);
@@ -182,55 +329,202 @@ public class TransactionService {
         }
     }
     
+    // The engine checks and applies the posting in memory; the transaction row is written by its replicator
+    private TransactionResponse engineDeposit(DepositRequest request) {
+        Account targetAccount = accountService.findByAccountNumber(request.getAccountNumber());
+        if (!hasAccountAccess(targetAccount, getCurrentUser())) {
+            throw new AccessDeniedException("Access denied: Only account owner, admin, or teller can deposit");
+        }
+        if (!targetAccount.getIsActive()) {
+            throw new BankingException("Cannot deposit to inactive account", "ACCOUNT_INACTIVE");
+        }
+        
+        String description = request.getDescription() != null ? request.getDescription() : "Deposit";
+        PostingReceipt receipt = postingEngine.deposit(targetAccount, request.getAmount(), description);
+        TransactionResponse response = engineResponse(receipt, Transaction.TransactionType.DEPOSIT,
+                request.getAmount(), null, targetAccount, description);
+        publishCompleted(response, List.of(balanceChange(targetAccount, receipt.targetBalance())));
+        return response;
+    }
+    
+    private TransactionResponse engineWithdraw(WithdrawRequest request) {
+        Account sourceAccount = accountService.findByAccountNumber(request.getAccountNumber());
+        if (!hasAccountAccess(sourceAccount, getCurrentUser())) {
+            throw new AccessDeniedException("Access denied: Only account owner, admin, or teller can withdraw");
+        }
+        if (!sourceAccount.getIsActive()) {
+            throw new BankingException("Cannot withdraw from inactive account", "ACCOUNT_INACTIVE");
+        }
+        
+        String description = request.getDescription() != null ? request.getDescription() : "Withdrawal";
+        PostingReceipt receipt = postingEngine.withdraw(sourceAccount, request.getAmount(), description);
+        TransactionResponse response = engineResponse(receipt, Transaction.TransactionType.WITHDRAW,
+                request.getAmount(), sourceAccount, null, description);
+        publishCompleted(response, List.of(balanceChange(sourceAccount, receipt.sourceBalance())));
+        return response;
+    }
+    
+    private TransactionResponse engineTransfer(TransferRequest request) {
+        Account sourceAccount = accountService.findByAccountNumber(request.getSourceAccountNumber());
+        Account targetAccount = accountService.findByAccountNumber(request.getTargetAccountNumber());
+        if (!sourceAccount.getUser().getId().equals(getCurrentUser().getId()) && !isAdmin()) {
+            throw new AccessDeniedException("Access denied: You can only transfer from your own accounts");
+        }
+        if (!sourceAccount.getIsActive() || !targetAccount.getIsActive()) {
+            throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
+        }
+        
+        String description = request.getDescription() != null ? request.getDescription() : "Transfer";
+        PostingReceipt receipt = postingEngine.transfer(sourceAccount, targetAccount, request.getAmount(), description);
+        TransactionResponse response = engineResponse(receipt, Transaction.TransactionType.TRANSFER,
+                request.getAmount(), sourceAccount, targetAccount, description);
+        publishCompleted(response, List.of(
+                balanceChange(sourceAccount, receipt.sourceBalance()),
+                balanceChange(targetAccount, receipt.targetBalance())));
+        return response;
+    }
+    
+    // No id yet: the row is inserted when the replicator catches up, the reference number identifies it until then
+    private TransactionResponse engineResponse(PostingReceipt receipt, Transaction.TransactionType type, BigDecimal amount,
+                                               Account source, Account target, String description) {
+        return new TransactionResponse(null, amount, type,
+                source != null ? source.getAccountNumber() : null,
+                target != null ? target.getAccountNumber() : null,
+                description, receipt.referenceNumber(), receipt.timestamp(), Transaction.TransactionStatus.COMPLETED);
+    }
+    
+    // Accounts on different shards cannot share a local transaction, so the coordinator runs a saga
+    private TransactionResponse crossShardTransfer(TransferRequest request) {
+        User currentUser = getCurrentUser();
+        Long sourceOwnerId = accountService.getMetadata(request.getSourceAccountNumber()).ownerId();
+        if (!sourceOwnerId.equals(currentUser.getId()) && !isAdmin()) {
+            throw new AccessDeniedException("Access denied: You can only transfer from your own accounts");
+        }
+        
+        CrossShardTransferCoordinator.Result result = crossShardTransferCoordinator.transfer(
+                request.getSourceAccountNumber(),
+                request.getTargetAccountNumber(),
+                request.getAmount(),
+                request.getDescription() != null ? request.getDescription() : "Transfer");
+        
+        publishCompleted(result.getTransaction(), Stream.of(result.getSourceAccount(), result.getTargetAccount())
+                .filter(account -> account.getPostingMode() == Account.PostingMode.STANDARD)
+                .toArray(Account[]::new));
+        return result.getTransaction();
+    }
+    
+    @Transactional(readOnly = true)
     public List<TransactionResponse> getAccountTransactions(Long accountId) {
+        return metrics.recordQuery(TransactionMetrics.Operation.ACCOUNT_TRANSACTIONS, () -> findAccountTransactions(accountId));
+    }
+    
+    private List<TransactionResponse> findAccountTransactions(Long accountId) {
+        shardRouter.bindAccountId(accountId);
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
         
         User currentUser = getCurrentUser();
         if (!account.getUser().getId().equals(currentUser.getId()) && !isAdmin() && !isTeller()) {
-            throw new RuntimeException("Access denied: Only the account owner, teller, or admin can view these transactions");
+            throw new AccessDeniedException("Access denied: Only the account owner, teller, or admin can view these transactions");
         }
         
-        List<Transaction> transactions = transactionRepository.findBySourceAccountIdOrTargetAccountId(accountId, accountId);
+        List<Transaction> transactions = transactionRepository.findAccountHistory(account);
         return transactions.stream()
                 .map(TransactionResponse::new)
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getAllTransactions(Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findAll(pageable);
-        return transactions.map(TransactionResponse::new);
+        if (!shardRouter.isEnabled()) {
+            Page<Transaction> transactions = transactionRepository.findAll(pageable);
+            return transactions.map(TransactionResponse::new);
+        }
+        // Shards are merged newest first, so that is the order of the page whatever sort was asked for
+        return mergeShardPages(pageable, upToPage -> transactionRepository.findAll(PageRequest.of(0,
+                upToPage.getPageSize(), Sort.by(Sort.Direction.DESC, "timestamp", "id"))));
     }
     
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getUserTransactions(Pageable pageable) {
-        User currentUser = getCurrentUser();
-        Page<Transaction> transactions = transactionRepository.findUserTransactions(currentUser.getId(), pageable);
-        return transactions.map(TransactionResponse::new);
+        return metrics.recordQuery(TransactionMetrics.Operation.USER_TRANSACTIONS,
+                () -> findUserTransactions(getCurrentUser(), pageable));
+    }
+    
+    /**
+     * A page of the given user's transactions, for staff looking at a customer.
+     */
+    @Transactional(readOnly = true)
+    public Page<TransactionResponse> getUserTransactions(User user, Pageable pageable) {
+        return findUserTransactions(user, pageable);
     }
     
+    private Page<TransactionResponse> findUserTransactions(User user, Pageable pageable) {
+        if (!shardRouter.isEnabled()) {
+            Page<Transaction> transactions = transactionRepository.findUserHistory(user, pageable);
+            return transactions.map(TransactionResponse::new);
+        }
+        return mergeShardPages(pageable, upToPage -> transactionRepository.findUserHistory(user, upToPage));
+    }
+    
+    // Rows may sit on any shard: each shard returns its rows up to the end of the requested page,
+    // newest first, and the merged rows are cut to the page in that same order
+    private Page<TransactionResponse> mergeShardPages(Pageable pageable, Function<Pageable, Page<Transaction>> query) {
+        Pageable upToPage = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        List<Page<TransactionResponse>> shards = shardRouter.onEveryShard(() -> query.apply(upToPage)
+                .map(TransactionResponse::new));
+        List<TransactionResponse> page = shards.stream()
+                .flatMap(shard -> shard.getContent().stream())
+                .sorted(Comparator.comparing(TransactionResponse::getTimestamp)
+                        .thenComparing(TransactionResponse::getId)
+                        .reversed())
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        long total = shards.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(page, pageable, total);
+    }
+    
+    @Transactional(readOnly = true)
     public TransactionResponse getTransactionByReference(String referenceNumber) {
-        Transaction transaction = transactionRepository.findByReferenceNumber(referenceNumber)
+        User currentUser = getCurrentUser();
+        
+        // With sharding the reference may live on any shard; both legs of a cross-shard transfer carry it
+        ReferenceLookup lookup = shardRouter.onEveryShard(() -> transactionRepository.findByReferenceNumberPruned(referenceNumber)
+                        .map(transaction -> new ReferenceLookup(new TransactionResponse(transaction),
+                                isUserInvolved(transaction, currentUser))))
+                .stream()
+                .flatMap(Optional::stream)
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
         
         // Verify user is involved in the transaction or is admin
-        User currentUser = getCurrentUser();
-        boolean isUserInvolved = (transaction.getSourceAccount() != null && 
-                transaction.getSourceAccount().getUser().getId().equals(currentUser.getId())) ||
-                (transaction.getTargetAccount() != null && 
-                transaction.getTargetAccount().getUser().getId().equals(currentUser.getId()));
-        
-        if (!isUserInvolved && !isAdmin() && !isTeller()) {
+        if (!lookup.userInvolved() && !isAdmin() && !isTeller()) {
             throw new RuntimeException("Access denied: Only involved parties, tellers, or admins can view this transaction");
         }
         
-        return new TransactionResponse(transaction);
+        return lookup.response();
+    }
+    
+    private boolean isUserInvolved(Transaction transaction, User currentUser) {
+        return (transaction.getSourceAccount() != null && 
+                transaction.getSourceAccount().getUser().getId().equals(currentUser.getId())) ||
+                (transaction.getTargetAccount() != null && 
+                transaction.getTargetAccount().getUser().getId().equals(currentUser.getId()));
+    }
+    
+    private record ReferenceLookup(TransactionResponse response, boolean userInvolved) {
     }
     
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isEmpty() && shardRouter.replicateUser(username)) {
+            // Newly registered users may not have reached this shard yet
+            user = userRepository.findByUsername(username);
+        }
+        return user.orElseThrow(() -> new RuntimeException("Current user not found"));
     }
     
     private boolean isAdmin() {
@@ -247,7 +541,69 @@ public class TransactionService {
                 .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(authority));
     }
 
+    // Delivered to listeners only after the surrounding transaction commits
+    private void publishCompleted(TransactionResponse response, Account... accounts) {
+        publishCompleted(response, Arrays.stream(accounts)
+                .map(account -> balanceChange(account, account.getBalance()))
+                .toList());
+    }
+    
+    private void publishCompleted(TransactionResponse response, List<TransactionCompletedEvent.AccountBalanceChange> changes) {
+        eventPublisher.publishEvent(new TransactionCompletedEvent(response, changes));
+    }
+    
+    private TransactionCompletedEvent.AccountBalanceChange balanceChange(Account account, BigDecimal balance) {
+        return new TransactionCompletedEvent.AccountBalanceChange(account.getUser().getId(),
+                new ActivityUpdate.AccountBalance(account.getAccountNumber(), balance));
+    }
+
+    private Account loadForPosting(String accountNumber, boolean lock) {
+        return lock
+                ? accountService.findByAccountNumberForUpdate(accountNumber)
+                : accountService.findByAccountNumber(accountNumber);
+    }
+    
+    // The mode was cached or read before any lock, so an admin may have striped or hot-flagged the account since.
+    // A locked row cannot change mode until commit, so its own mode is the one to post with; unlocked
+    // hot and striped postings notice a change on their own (stripingChanged, the fold pass).
+    private static Account.PostingMode postingMode(Account account, Account.PostingMode readMode, boolean locked) {
+        return locked ? account.getPostingMode() : readMode;
+    }
+    
+    // Checks the source can cover the amount; a striped account is debited by the check itself
+    private boolean checkAndDebit(Account account, Account.PostingMode mode, BigDecimal amount) {
+        switch (mode) {
+            case STRIPED:
+                return stripedBalanceService.tryDebit(account, amount);
+            case HOT:
+                // The row is locked, so every pending credit can be folded before the check
+                hotAccountService.foldPendingCredits(account);
+                return account.getBalance().compareTo(amount) >= 0;
+            default:
+                return account.getBalance().compareTo(amount) >= 0;
+        }
+    }
+    
+    private void credit(Account account, Account.PostingMode mode, BigDecimal amount, Transaction transaction) {
+        switch (mode) {
+            case HOT:
+                transaction.setReferenceNumber(Transaction.newReferenceNumber());
+                hotAccountService.appendCredit(account.getId(), amount, transaction.getReferenceNumber());
+                break;
+            case STRIPED:
+                stripedBalanceService.credit(account, amount);
+                break;
+            default:
+                account.setBalance(account.getBalance().add(amount));
+                accountRepository.save(account);
+        }
+    }
+    
     private boolean hasAccountAccess(Account account, User currentUser) {
-        return account.getUser().getId().equals(currentUser.getId()) || isAdmin() || isTeller();
+        return hasAccountAccess(account.getUser().getId(), currentUser);
+    }
+    
+    private boolean hasAccountAccess(Long ownerId, User currentUser) {
+        return ownerId.equals(currentUser.getId()) || isAdmin() || isTeller();
     }
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+package com.example.banking_system.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter over every username and email, so registration only asks the
+ * database whether a name is taken when the filter says it might be.
+ *
+ * A Bloom filter has no false negatives: a name it has not seen is certainly
+ * not in the users it was built from. It is built from the users table once
+ * the application is ready, takes each user this node creates as it is
+ * saved, and picks up users created or renamed elsewhere, such as on other
+ * nodes, from updated_at every refresh-ms. A name registered on another node
+ * since the last refresh can still slip past it, which the unique
+ * constraints catch. Until the first build is done every name is reported as
+ * possibly taken.
+ */
+@Component
+public class UserIdentityFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIdentityFilter.class);
+
+    private static final String ALL_USERS = "SELECT username, email FROM users";
+    private static final String CHANGED_USERS = "SELECT username, email, updated_at FROM users WHERE updated_at >= ?";
+    // Re-reads a little before the last change seen, for rows committed late or stamped by a slower clock
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter skippedCounter;
+    private final Counter checkedCounter;
+    // The startup build and the scheduled refresh both replace refreshedUpTo, so they take turns
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Bits bits;
+    private volatile LocalDateTime refreshedUpTo;
+
+    @Value("${banking.users.identity-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.users.identity-filter.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${banking.users.identity-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public UserIdentityFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.skippedCounter = Counter.builder("banking.users.identity-filter")
+                .description("Username and email checks answered by the Bloom filter or the database")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        this.checkedCounter = Counter.builder("banking.users.identity-filter")
+                .description("Username and email checks answered by the Bloom filter or the database")
+                .tag("result", "checked")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            long started = System.nanoTime();
+            LocalDateTime buildStarted = LocalDateTime.now();
+            Bits built = new Bits(expectedUsers * 2, falsePositiveRate);
+            long[] users = {0};
+            jdbcTemplate.query(ALL_USERS, rs -> {
+                built.add(usernameKey(rs.getString(1)));
+                built.add(emailKey(rs.getString(2)));
+                users[0]++;
+            });
+            bits = built;
+            // Users saved while the table was read were not added by save: they were not built yet
+            refreshedUpTo = buildStarted;
+            doRefresh();
+            logger.info("Built the username and email filter from {} users in {} ms ({} KiB, {} hash functions)",
+                    users[0], (System.nanoTime() - started) / 1_000_000, built.sizeInBytes() / 1024, built.hashes);
+        } catch (RuntimeException e) {
+            // Every check goes to the database until a build succeeds
+            bits = null;
+            logger.warn("Could not build the username and email filter: {}", e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.users.identity-filter.refresh-ms:30000}",
+               initialDelayString = "${banking.users.identity-filter.refresh-ms:30000}")
+    public void refresh() {
+        if (bits == null) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            doRefresh();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the username and email filter: {}", e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * False only if no user has this username.
+     */
+    public boolean mightContainUsername(String username) {
+        return record(mightContain(usernameKey(username)));
+    }
+
+    /**
+     * False only if no user has this email.
+     */
+    public boolean mightContainEmail(String email) {
+        return record(mightContain(emailKey(email)));
+    }
+
+    /**
+     * False only if neither the username nor the email is taken.
+     */
+    public boolean mightContainEither(String username, String email) {
+        return record(mightContain(usernameKey(username)) || mightContain(emailKey(email)));
+    }
+
+    public void add(String username, String email) {
+        Bits current = bits;
+        if (current != null) {
+            current.add(usernameKey(username));
+            current.add(emailKey(email));
+        }
+    }
+
+    private void doRefresh() {
+        LocalDateTime[] latest = {refreshedUpTo};
+        jdbcTemplate.query(CHANGED_USERS, rs -> {
+            add(rs.getString(1), rs.getString(2));
+            Timestamp updatedAt = rs.getTimestamp(3);
+            if (updatedAt != null && updatedAt.toLocalDateTime().isAfter(latest[0])) {
+                latest[0] = updatedAt.toLocalDateTime();
+            }
+        }, Timestamp.valueOf(refreshedUpTo.minusSeconds(REFRESH_OVERLAP_SECONDS)));
+        refreshedUpTo = latest[0];
+    }
+
+    private boolean mightContain(byte[] key) {
+        Bits current = bits;
+        return current == null || current.mightContain(key);
+    }
+
+    private boolean record(boolean mightContain) {
+        (mightContain ? checkedCounter : skippedCounter).increment();
+        return mightContain;
+    }
+
+    // Prefixed so a username never matches an email that happens to be spelled the same
+    private static byte[] usernameKey(String username) {
+        return ("u:" + username).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] emailKey(String email) {
+        return ("e:" + email).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The bit array, set without locks. Each key is hashed once into two 64-bit
+     * halves that are combined into the k probe positions.
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashes;
+
+        private Bits(long expectedKeys, double falsePositiveRate) {
+            long keys = Math.max(1, expectedKeys);
+            long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = Math.toIntExact(Math.max(1, (bits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        }
+
+        private void add(byte[] key) {
+            long[] hash = murmur3(key);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private boolean mightContain(byte[] key) {
+            long[] hash = murmur3(key);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long sizeInBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        // MurmurHash3 x64 128-bit with seed 0
+        private static long[] murmur3(byte[] data) {
+            final long c1 = 0x87c37b91114253d5L;
+            final long c2 = 0x4cf5ad432745937fL;
+            long h1 = 0;
+            long h2 = 0;
+            int blocks = data.length / 16;
+            for (int i = 0; i < blocks; i++) {
+                long k1 = littleEndian(data, i * 16);
+                long k2 = littleEndian(data, i * 16 + 8);
+                h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+                h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+                h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+                h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+            }
+            long k1 = 0;
+            long k2 = 0;
+            int tail = blocks * 16;
+            for (int i = data.length - 1; i >= tail; i--) {
+                long b = data[i] & 0xffL;
+                if (i - tail >= 8) {
+                    k2 |= b << ((i - tail - 8) * 8);
+                } else {
+                    k1 |= b << ((i - tail) * 8);
+                }
+            }
+            h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+            h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+            h1 ^= data.length;
+            h2 ^= data.length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new long[]{h1, h2};
+        }
+
+        private static long littleEndian(byte[] data, int offset) {
+            long value = 0;
+            for (int i = 7; i >= 0; i--) {
+                value = (value << 8) | (data[offset + i] & 0xffL);
+            }
+            return value;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb93fe53cc34fL;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.CustomerSearchResult;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead search for customers by part of their username, email, name,
+ * phone number or account number.
+ *
+ * The matching is done by the database so every node sees every write at
+ * once. On PostgreSQL db/postgresql/add-search-trigram-indexes.sql adds
+ * pg_trgm GIN indexes that answer the substring patterns from three
+ * characters up, and text_pattern_ops indexes for the prefix patterns that
+ * shorter queries fall back to; elsewhere, and before the script has run,
+ * the same queries scan the tables. Each field has its own query with its
+ * own LIMIT, so every one can stop early on its index instead of the planner
+ * combining four patterns under one LIMIT. Prefix matches on any field are
+ * listed first, then the substring matches, each group by username. Accounts
+ * are searched on every shard and joined to the users copied there.
+ */
+@Service
+public class UserSearchService {
+
+    // The expressions must stay those of the indexes in add-search-trigram-indexes.sql
+    private static final List<String> SEARCH_USERS = Stream.of("LOWER(username)", "LOWER(email)",
+                    "LOWER(COALESCE(first_name, '') || ' ' || COALESCE(last_name, ''))", "phone_number")
+            .map(field -> "SELECT id, username, email, first_name, last_name, phone_number, is_enabled FROM users " +
+                    "WHERE " + field + " LIKE ? ESCAPE '\\' LIMIT ?")
+            .toList();
+    private static final Comparator<CustomerSearchResult> BY_USERNAME =
+            Comparator.comparing(CustomerSearchResult::getUsername);
+    private static final String SEARCH_ACCOUNTS = "SELECT u.id, u.username, u.email, u.first_name, u.last_name, " +
+            "u.phone_number, u.is_enabled, a.id, a.account_number, a.account_type, a.is_active " +
+            "FROM accounts a JOIN users u ON u.id = a.user_id WHERE a.account_number LIKE ? ESCAPE '\\' " +
+            "ORDER BY a.account_number LIMIT ?";
+    // Below this trigram indexes cannot narrow a substring pattern, so only prefixes are matched
+    private static final int SUBSTRING_MIN_LENGTH = 3;
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_LIMIT = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final Timer searchTimer;
+
+    public UserSearchService(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.searchTimer = Timer.builder("banking.users.search")
+                .description("Time to answer a customer search")
+                .register(meterRegistry);
+    }
+
+    public List<CustomerSearchResult> search(String query, int limit) {
+        String text = query == null ? "" : query.trim();
+        if (text.length() < MIN_QUERY_LENGTH) {
+            throw new BankingException("Search needs at least " + MIN_QUERY_LENGTH + " characters", "INVALID_QUERY");
+        }
+        int rows = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return searchTimer.record(() -> doSearch(text, rows));
+    }
+
+    private List<CustomerSearchResult> doSearch(String text, int rows) {
+        String escaped = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String lower = escaped.toLowerCase(Locale.ROOT);
+        String prefix = lower + "%";
+        String match = text.length() >= SUBSTRING_MIN_LENGTH ? "%" + lower + "%" : prefix;
+
+        Map<Long, CustomerSearchResult> users = new LinkedHashMap<>();
+        addUsers(users, prefix, rows);
+        if (users.size() < rows && text.length() >= SUBSTRING_MIN_LENGTH) {
+            addUsers(users, match, rows);
+        }
+        List<CustomerSearchResult> results = new ArrayList<>(users.values());
+        if (results.size() < rows) {
+            String accountNumber = escaped.toUpperCase(Locale.ROOT);
+            String accountMatch = text.length() >= SUBSTRING_MIN_LENGTH ? "%" + accountNumber + "%" : accountNumber + "%";
+            int remaining = rows - results.size();
+            shardRouter.onEveryShard(() -> jdbcTemplate.query(SEARCH_ACCOUNTS, accountRow(), accountMatch, remaining))
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .limit(remaining)
+                    .forEach(results::add);
+        }
+        return results;
+    }
+
+    // Adds the users any field matches, by username after those already found, up to rows in all
+    private void addUsers(Map<Long, CustomerSearchResult> users, String pattern, int rows) {
+        Map<Long, CustomerSearchResult> found = new HashMap<>();
+        for (String query : SEARCH_USERS) {
+            for (CustomerSearchResult user : jdbcTemplate.query(query, userRow(), pattern, rows)) {
+                if (!users.containsKey(user.getUserId())) {
+                    found.putIfAbsent(user.getUserId(), user);
+                }
+            }
+        }
+        found.values().stream()
+                .sorted(BY_USERNAME)
+                .limit(rows - users.size())
+                .forEach(user -> users.put(user.getUserId(), user));
+    }
+
+    private static RowMapper<CustomerSearchResult> userRow() {
+        return (rs, rowNum) -> new CustomerSearchResult(rs.getLong(1), rs.getString(2), fullName(rs.getString(4),
+                rs.getString(5)), rs.getString(3), rs.getString(6), rs.getBoolean(7), null, null, null, null);
+    }
+
+    private static RowMapper<CustomerSearchResult> accountRow() {
+        return (rs, rowNum) -> new CustomerSearchResult(rs.getLong(1), rs.getString(2), fullName(rs.getString(4),
+                rs.getString(5)), rs.getString(3), rs.getString(6), rs.getBoolean(7), rs.getLong(8),
+                rs.getString(9), rs.getString(10), rs.getBoolean(11));
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        String name = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        return name.isEmpty() ? null : name;
+    }
+}
@@ -18,6 +18,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserIdentityFilter userIdentityFilter;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -44,7 +47,9 @@ public class UserService {
             existingUser.setPhoneNumber(userDetails.getPhoneNumber());
         }
         
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        userIdentityFilter.add(saved.getUsername(), saved.getEmail());
+        return saved;
     }
 
     public void deleteUser(Long id) {
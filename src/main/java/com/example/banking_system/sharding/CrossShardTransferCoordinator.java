@@ -0,0 +1,231 @@
+package com.example.banking_system.sharding;
+
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.exception.InsufficientFundsException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.TransactionRepository;
+import com.example.banking_system.service.StripedBalanceService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Saga for transfers whose accounts live on different shards.
+ *
+ * 1. Debit the source and record a PENDING outgoing leg on the source shard.
+ * 2. Credit the target and record a COMPLETED incoming leg on the target shard.
+ * 3. Mark the outgoing leg COMPLETED.
+ *
+ * Each step is its own local transaction and both legs share one reference
+ * number. If step 2 fails the debit is compensated and the outgoing leg marked
+ * FAILED. Legs left PENDING by a crash are settled by the recovery sweep, which
+ * uses the reference number on the target shard to tell whether step 2 ran.
+ */
+@Component
+public class CrossShardTransferCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrossShardTransferCoordinator.class);
+
+    private final ShardRouter shardRouter;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final StripedBalanceService stripedBalanceService;
+
+    @Value("${banking.sharding.transfer-recovery-after-ms:60000}")
+    private long recoveryAfterMs;
+
+    public CrossShardTransferCoordinator(ShardRouter shardRouter,
+                                         AccountRepository accountRepository,
+                                         TransactionRepository transactionRepository,
+                                         StripedBalanceService stripedBalanceService) {
+        this.shardRouter = shardRouter;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.stripedBalanceService = stripedBalanceService;
+    }
+
+    public Result transfer(String sourceAccountNumber, String targetAccountNumber,
+                           BigDecimal amount, String description) {
+        int sourceShard = shardRouter.shardForAccountNumber(sourceAccountNumber);
+        int targetShard = shardRouter.shardForAccountNumber(targetAccountNumber);
+        String referenceNumber = Transaction.newReferenceNumber();
+
+        // Fail fast before touching money if the target cannot take the credit
+        shardRouter.onShard(targetShard, true, () -> {
+            Account target = findAccount(targetAccountNumber);
+            if (!target.getIsActive()) {
+                throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
+            }
+            return target;
+        });
+
+        Account source = shardRouter.onShard(sourceShard, false, () ->
+                debitSource(sourceAccountNumber, targetAccountNumber, amount, description, referenceNumber));
+
+        Account target;
+        try {
+            target = shardRouter.onShard(targetShard, false, () ->
+                    creditTarget(sourceAccountNumber, targetAccountNumber, amount, description, referenceNumber));
+        } catch (RuntimeException e) {
+            logger.warn("Cross-shard transfer {} failed on target shard {}, compensating: {}",
+                    referenceNumber, targetShard, e.getMessage());
+            shardRouter.onShard(sourceShard, false, () -> compensate(referenceNumber));
+            throw new BankingException("Transfer failed: " + e.getMessage(), "TRANSACTION_FAILED", e);
+        }
+
+        // Mapped inside the step so the lazy account associations are still attached
+        TransactionResponse response = shardRouter.onShard(sourceShard, false,
+                () -> new TransactionResponse(complete(referenceNumber)));
+        return new Result(response, source, target);
+    }
+
+    /**
+     * Settles outgoing legs a crash left PENDING on any shard.
+     */
+    @Scheduled(fixedDelayString = "${banking.sharding.transfer-recovery-interval-ms:30000}",
+               initialDelayString = "${banking.sharding.transfer-recovery-interval-ms:30000}")
+    public void recoverPendingTransfers() {
+        if (!shardRouter.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(recoveryAfterMs * 1_000_000);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            List<Transaction> stale = shardRouter.onShard(shard, true, () ->
+                    transactionRepository.findPendingOutgoingLegs(Transaction.TransactionStatus.PENDING, cutoff));
+
+            for (Transaction leg : stale) {
+                String reference = leg.getReferenceNumber();
+                int targetShard = shardRouter.shardForAccountNumber(leg.getCounterpartyAccountNumber());
+                boolean credited = shardRouter.onShard(targetShard, true, () ->
+                        transactionRepository.findByReferenceNumberPruned(reference).isPresent());
+                if (credited) {
+                    shardRouter.onShard(shard, false, () -> complete(reference));
+                    logger.info("Recovered cross-shard transfer {}: completed", reference);
+                } else {
+                    shardRouter.onShard(shard, false, () -> compensate(reference));
+                    logger.info("Recovered cross-shard transfer {}: compensated", reference);
+                }
+            }
+        }
+    }
+
+    private Account debitSource(String sourceAccountNumber, String targetAccountNumber,
+                                BigDecimal amount, String description, String referenceNumber) {
+        Account source = lockAccount(sourceAccountNumber);
+        if (!source.getIsActive()) {
+            throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
+        }
+        if (source.getPostingMode() == Account.PostingMode.STRIPED) {
+            if (!stripedBalanceService.tryDebit(source, amount)) {
+                throw new InsufficientFundsException("Insufficient funds");
+            }
+        } else {
+            if (source.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException("Insufficient funds");
+            }
+            source.setBalance(source.getBalance().subtract(amount));
+            accountRepository.save(source);
+        }
+
+        Transaction outgoing = newLeg(amount, description, referenceNumber);
+        outgoing.setSourceAccount(source);
+        outgoing.setCounterpartyAccountNumber(targetAccountNumber);
+        outgoing.setStatus(Transaction.TransactionStatus.PENDING);
+        transactionRepository.save(outgoing);
+        return source;
+    }
+
+    private Account creditTarget(String sourceAccountNumber, String targetAccountNumber,
+                                 BigDecimal amount, String description, String referenceNumber) {
+        Account target = lockAccount(targetAccountNumber);
+        if (transactionRepository.findByReferenceNumberPruned(referenceNumber).isPresent()) {
+            return target;
+        }
+        if (!target.getIsActive()) {
+            throw new BankingException("Cannot transfer to/from inactive accounts", "ACCOUNT_INACTIVE");
+        }
+
+        addToBalance(target, amount);
+
+        Transaction incoming = newLeg(amount, description, referenceNumber);
+        incoming.setTargetAccount(target);
+        incoming.setCounterpartyAccountNumber(sourceAccountNumber);
+        incoming.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transactionRepository.save(incoming);
+        return target;
+    }
+
+    private Transaction complete(String referenceNumber) {
+        Transaction outgoing = findLeg(referenceNumber);
+        if (outgoing.getStatus() == Transaction.TransactionStatus.PENDING) {
+            outgoing.setStatus(Transaction.TransactionStatus.COMPLETED);
+            transactionRepository.save(outgoing);
+        }
+        return outgoing;
+    }
+
+    private Transaction compensate(String referenceNumber) {
+        Transaction outgoing = findLeg(referenceNumber);
+        if (outgoing.getStatus() == Transaction.TransactionStatus.PENDING) {
+            Account source = lockAccount(outgoing.getSourceAccount().getAccountNumber());
+            addToBalance(source, outgoing.getAmount());
+            outgoing.setStatus(Transaction.TransactionStatus.FAILED);
+            transactionRepository.save(outgoing);
+        }
+        return outgoing;
+    }
+
+    // The saga holds the account row lock, which also keeps the striping from changing under it
+    private void addToBalance(Account account, BigDecimal amount) {
+        if (account.getPostingMode() == Account.PostingMode.STRIPED) {
+            stripedBalanceService.credit(account, amount);
+        } else {
+            account.setBalance(account.getBalance().add(amount));
+            accountRepository.save(account);
+        }
+    }
+
+    private Transaction newLeg(BigDecimal amount, String description, String referenceNumber) {
+        Transaction leg = new Transaction();
+        leg.setAmount(amount);
+        leg.setType(Transaction.TransactionType.TRANSFER);
+        leg.setDescription(description);
+        leg.setReferenceNumber(referenceNumber);
+        return leg;
+    }
+
+    private Account findAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found with number: " + accountNumber));
+    }
+
+    // Each saga step locks a single account, so there is no lock ordering to get wrong
+    private Account lockAccount(String accountNumber) {
+        return accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found with number: " + accountNumber));
+    }
+
+    private Transaction findLeg(String referenceNumber) {
+        return transactionRepository.findByReferenceNumberPruned(referenceNumber)
+                .orElseThrow(() -> new RuntimeException("Transaction not found: " + referenceNumber));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final TransactionResponse transaction;
+        private final Account sourceAccount;
+        private final Account targetAccount;
+    }
+}
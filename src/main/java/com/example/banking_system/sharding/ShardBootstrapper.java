@@ -0,0 +1,209 @@
+package com.example.banking_system.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prepares the secondary shards and keeps their reference data current.
+ *
+ * Hibernate only manages the schema of shard 0, so missing tables are exported
+ * to the other shards here, and their identity columns are moved to the shard's
+ * id block. Users, roles and user_roles are mastered on shard 0 and copied to
+ * every other shard so account ownership checks and user lookups work locally.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.sharding.enabled", havingValue = "true")
+public class ShardBootstrapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardBootstrapper.class);
+
+    private static final String USER_COLUMNS =
+            "id, username, password, email, first_name, last_name, phone_number, is_enabled, created_at, updated_at";
+
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final AtomicBoolean ready = new AtomicBoolean();
+    // One copy to the shards at a time: the scheduled sync, and the immediate ones registrations and imports ask for
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile LocalDateTime syncedUpTo = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public ShardBootstrapper(ShardRoutingDataSource shardRoutingDataSource,
+                             EntityManagerFactory entityManagerFactory) {
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeShards() {
+        for (int shard = 1; shard < shardRoutingDataSource.getShardCount(); shard++) {
+            prepareSchema(shard);
+        }
+        syncReferenceData();
+        ready.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.sharding.reference-sync-interval-ms:1000}")
+    public void scheduledSync() {
+        if (ready.get()) {
+            syncReferenceData();
+        }
+    }
+
+    /**
+     * Copies a single user to every shard right away, for callers that cannot wait for the next sync.
+     */
+    public void syncUser(String username) {
+        List<Map<String, Object>> rows = master().queryForList(
+                "SELECT " + USER_COLUMNS + " FROM users WHERE username = ?", username);
+        syncLock.lock();
+        try {
+            copyUsers(rows);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public void syncReferenceData() {
+        syncLock.lock();
+        try {
+            doSyncReferenceData();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void doSyncReferenceData() {
+        JdbcTemplate master = master();
+        LocalDateTime since = syncedUpTo;
+
+        List<Map<String, Object>> roles = master.queryForList("SELECT id, name FROM roles");
+        List<Map<String, Object>> users = master.queryForList(
+                "SELECT " + USER_COLUMNS + " FROM users WHERE updated_at >= ? ORDER BY updated_at",
+                Timestamp.valueOf(since));
+
+        for (int shard = 1; shard < shardRoutingDataSource.getShardCount(); shard++) {
+            JdbcTemplate target = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+            for (Map<String, Object> role : roles) {
+                upsert(target, "UPDATE roles SET name = ? WHERE id = ?",
+                        "INSERT INTO roles (name, id) VALUES (?, ?)",
+                        role.get("name"), role.get("id"));
+            }
+        }
+        copyUsers(users);
+
+        if (!users.isEmpty()) {
+            Object last = users.get(users.size() - 1).get("updated_at");
+            if (last instanceof Timestamp timestamp) {
+                syncedUpTo = timestamp.toLocalDateTime();
+            }
+        }
+    }
+
+    private void copyUsers(List<Map<String, Object>> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        JdbcTemplate master = master();
+        for (int shard = 1; shard < shardRoutingDataSource.getShardCount(); shard++) {
+            JdbcTemplate target = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+            for (Map<String, Object> user : users) {
+                Object id = user.get("id");
+                upsert(target,
+                        "UPDATE users SET username = ?, password = ?, email = ?, first_name = ?, last_name = ?, " +
+                        "phone_number = ?, is_enabled = ?, created_at = ?, updated_at = ? WHERE id = ?",
+                        "INSERT INTO users (username, password, email, first_name, last_name, phone_number, " +
+                        "is_enabled, created_at, updated_at, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        user.get("username"), user.get("password"), user.get("email"), user.get("first_name"),
+                        user.get("last_name"), user.get("phone_number"), user.get("is_enabled"),
+                        user.get("created_at"), user.get("updated_at"), id);
+
+                target.update("DELETE FROM user_roles WHERE user_id = ?", id);
+                for (Map<String, Object> link : master.queryForList("SELECT role_id FROM user_roles WHERE user_id = ?", id)) {
+                    target.update("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", id, link.get("role_id"));
+                }
+            }
+        }
+    }
+
+    private void upsert(JdbcTemplate target, String update, String insert, Object... args) {
+        if (target.update(update, args) == 0) {
+            target.update(insert, args);
+        }
+    }
+
+    private void prepareSchema(int shard) {
+        DataSource dataSource = shardRoutingDataSource.getShard(shard);
+        if (!tableExists(dataSource, "accounts")) {
+            Integer previous = ShardContext.current();
+            ShardContext.set(shard);
+            try {
+                entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(false);
+            } finally {
+                ShardContext.set(previous);
+            }
+            logger.info("Created schema on shard {}", shard);
+        }
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long firstId = shard * ShardRouter.ID_BLOCK + 1;
+        for (String table : List.of("accounts", "transactions", "standing_orders")) {
+            Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId == null || maxId < firstId) {
+                // A partitioned transactions table draws ids from a plain sequence instead of an identity
+                String sequence = isPostgreSql(dataSource)
+                        ? jdbc.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, table)
+                        : null;
+                jdbc.execute(sequence != null
+                        ? "ALTER SEQUENCE " + sequence + " RESTART WITH " + firstId
+                        : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + firstId);
+            }
+        }
+    }
+
+    private boolean tableExists(DataSource dataSource, String table) {
+        try (Connection connection = dataSource.getConnection()) {
+            // PostgreSQL reports unquoted names in lower case, H2 in upper case
+            for (String candidate : List.of(table, table.toUpperCase())) {
+                try (ResultSet rs = connection.getMetaData().getTables(null, null, candidate, new String[]{"TABLE"})) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot inspect schema of shard", e);
+        }
+    }
+
+    private boolean isPostgreSql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot inspect shard database", e);
+        }
+    }
+
+    private JdbcTemplate master() {
+        return new JdbcTemplate(shardRoutingDataSource.getShard(0));
+    }
+}
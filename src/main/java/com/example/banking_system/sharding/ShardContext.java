@@ -0,0 +1,29 @@
+package com.example.banking_system.sharding;
+
+/**
+ * Holds the shard the current thread's next physical connection should come from.
+ * Managed through ShardRouter; an unset context means shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
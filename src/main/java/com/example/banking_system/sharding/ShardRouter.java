@@ -0,0 +1,192 @@
+package com.example.banking_system.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Maps accounts to shards and scopes work to a shard.
+ *
+ * Accounts are placed by a hash of their account number. Each shard hands out
+ * account, transaction and standing order ids from its own block of ID_BLOCK
+ * (10^15) values, starting at shard * ID_BLOCK + 1, so an id alone is enough
+ * to find its shard. Browsers read ids as JavaScript numbers, which are exact
+ * only up to 2^53 - 1, so at most MAX_SHARDS shards are accepted. With
+ * sharding disabled every method degrades to the single-database behaviour.
+ */
+@Component
+public class ShardRouter {
+
+    // 10^15
+    public static final long ID_BLOCK = 1_000_000_000_000_000L;
+    // Shards 0 to MAX_SHARDS - 1 keep every id below Number.MAX_SAFE_INTEGER, and far from overflowing a long
+    public static final int MAX_SHARDS = (int) (((1L << 53) - 1) / ID_BLOCK);
+
+    private final boolean enabled;
+    private final int shardCount;
+    private final ObjectProvider<ShardBootstrapper> shardBootstrapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+
+    public ShardRouter(ObjectProvider<ShardingProperties> shardingProperties,
+                       ObjectProvider<ShardBootstrapper> shardBootstrapper,
+                       PlatformTransactionManager transactionManager,
+                       EntityManagerFactory entityManagerFactory) {
+        this.shardBootstrapper = shardBootstrapper;
+        this.entityManagerFactory = entityManagerFactory;
+        ShardingProperties properties = shardingProperties.getIfAvailable();
+        this.enabled = properties != null && properties.isEnabled();
+        this.shardCount = enabled ? properties.getNodes().size() + 1 : 1;
+        if (shardCount > MAX_SHARDS) {
+            throw new IllegalStateException("At most " + MAX_SHARDS + " shards are supported, " + shardCount
+                    + " are configured: the ids of the others would not fit their id block");
+        }
+
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardForAccountNumber(String accountNumber) {
+        return enabled ? Math.floorMod(accountNumber.hashCode(), shardCount) : 0;
+    }
+
+    public int shardForId(Long id) {
+        if (!enabled || id == null) {
+            return 0;
+        }
+        long shard = id / ID_BLOCK;
+        return shard < shardCount ? (int) shard : 0;
+    }
+
+    public boolean isCrossShard(String firstAccountNumber, String secondAccountNumber) {
+        return shardForAccountNumber(firstAccountNumber) != shardForAccountNumber(secondAccountNumber);
+    }
+
+    /**
+     * Pins the current transaction to the shard holding the account. Must be
+     * called before the transaction issues its first statement.
+     */
+    public void bindAccountNumber(String accountNumber) {
+        if (enabled) {
+            bind(shardForAccountNumber(accountNumber));
+        }
+    }
+
+    public void bindAccountId(Long accountId) {
+        if (enabled) {
+            bind(shardForId(accountId));
+        }
+    }
+
+    /**
+     * Copies a user that is not yet on the secondary shards there right away.
+     * Returns false when there is nothing to replicate to.
+     */
+    public boolean replicateUser(String username) {
+        ShardBootstrapper bootstrapper = shardBootstrapper.getIfAvailable();
+        if (!enabled || bootstrapper == null) {
+            return false;
+        }
+        bootstrapper.syncUser(username);
+        return true;
+    }
+
+    /**
+     * Copies every user changed since the last sync to the secondary shards
+     * right away, for callers that created users in bulk.
+     */
+    public boolean replicateUsers() {
+        ShardBootstrapper bootstrapper = shardBootstrapper.getIfAvailable();
+        if (!enabled || bootstrapper == null) {
+            return false;
+        }
+        bootstrapper.syncReferenceData();
+        return true;
+    }
+
+    /**
+     * Runs the work in a new transaction on the given shard.
+     */
+    public <T> T onShard(int shard, boolean readOnly, Supplier<T> work) {
+        TransactionTemplate template = readOnly ? readOnlyTemplate : writeTemplate;
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            return withShard(shard, () -> template.execute(status -> work.get()));
+        }
+        // Outside a transaction the open-in-view EntityManager would be reused, along with the
+        // connection it holds to whichever shard it touched first; step it aside for the new one.
+        Object requestEntityManager = TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        try {
+            return withShard(shard, () -> template.execute(status -> work.get()));
+        } finally {
+            TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+        }
+    }
+
+    /**
+     * Runs the work against the given shard without opening a transaction, for
+     * statements such as DDL that must run in auto-commit mode.
+     */
+    public <T> T withShard(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Runs read-only work on every shard and collects the results in shard order.
+     * Without sharding the work simply runs in the caller's transaction.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> work) {
+        List<T> results = new ArrayList<>(shardCount);
+        if (!enabled) {
+            results.add(work.get());
+            return results;
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            results.add(onShard(shard, true, work));
+        }
+        return results;
+    }
+
+    private void bind(int shard) {
+        Integer current = ShardContext.current();
+        if (current != null && current != shard) {
+            throw new IllegalStateException("Transaction is already bound to shard " + current + ", cannot switch to " + shard);
+        }
+        ShardContext.set(shard);
+        if (current == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ShardContext.clear();
+                }
+            });
+        }
+    }
+}
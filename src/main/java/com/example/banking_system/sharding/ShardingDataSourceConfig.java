@@ -0,0 +1,66 @@
+package com.example.banking_system.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds one pool per shard behind a routing DataSource.
+ *
+ * As with the replica setup, the lazy proxy defers the physical connection to
+ * the first statement, so a service can pick its shard at the top of a
+ * @Transactional method after the transaction has already begun. This setup
+ * replaces the application DataSource and is not combined with read replicas.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(name = "banking.sharding.enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shardZeroDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource shardZeroDataSource,
+                                                         ShardingProperties properties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(shardZeroDataSource);
+        for (ShardingProperties.Node node : properties.getNodes()) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + shards.size());
+            shard.setJdbcUrl(node.getUrl());
+            shard.setUsername(node.getUsername());
+            shard.setPassword(node.getPassword());
+            if (node.getDriverClassName() != null) {
+                shard.setDriverClassName(node.getDriverClassName());
+            }
+            shard.setMaximumPoolSize(node.getMaximumPoolSize());
+            shards.add(shard);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.banking_system.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Account shard settings, bound from banking.sharding.*
+ *
+ * Shard 0 is the regular spring.datasource database and remains the master
+ * for users and roles; every entry under nodes adds one more shard.
+ */
+@Data
+@ConfigurationProperties(prefix = "banking.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // How often users and roles are copied from shard 0 to the other shards
+    private long referenceSyncIntervalMs = 1000;
+
+    // Cross-shard transfers still PENDING after this long are completed or compensated by the recovery sweep
+    private long transferRecoveryAfterMs = 60000;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 20;
+    }
+}
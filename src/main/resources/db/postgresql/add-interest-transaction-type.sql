@@ -0,0 +1,9 @@
+-- Allows the INTEREST transaction type written by the interest accrual job.
+--
+-- Hibernate creates a check constraint listing the enum values when it creates the
+-- transactions table, and schema updates do not widen it. Run once per database (and
+-- per shard) that was created before the INTEREST type existed.
+
+ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_type_check;
+ALTER TABLE transactions ADD CONSTRAINT transactions_type_check
+    CHECK (type IN ('DEPOSIT', 'WITHDRAW', 'TRANSFER', 'INTEREST'));
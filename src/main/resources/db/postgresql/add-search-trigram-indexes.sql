@@ -0,0 +1,33 @@
+-- Indexes for the customer search behind GET /api/users/search.
+--
+-- Search matches substrings of usernames, emails, names, phone numbers and account
+-- numbers. pg_trgm GIN indexes answer those LIKE '%...%' patterns from queries of three
+-- characters up; the text_pattern_ops indexes answer the prefix patterns used for shorter
+-- ones. Every expression must match UserSearchService's queries exactly. Run once per
+-- database; the accounts indexes once per shard. Without them search still works, by
+-- scanning the tables.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_username
+    ON users USING gin (LOWER(username) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_email
+    ON users USING gin (LOWER(email) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_name
+    ON users USING gin (LOWER(COALESCE(first_name, '') || ' ' || COALESCE(last_name, '')) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_phone
+    ON users USING gin (phone_number gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_username_prefix
+    ON users (LOWER(username) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_email_prefix
+    ON users (LOWER(email) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_name_prefix
+    ON users (LOWER(COALESCE(first_name, '') || ' ' || COALESCE(last_name, '')) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_phone_prefix
+    ON users (phone_number text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_accounts_search_number
+    ON accounts USING gin (account_number gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_accounts_search_number_prefix
+    ON accounts (account_number text_pattern_ops);
@@ -0,0 +1,14 @@
+-- Description index for the transaction search behind GET /api/admin/transactions/search.
+--
+-- The search matches LOWER(description) LIKE '%...%' within a bounded date range; the
+-- keyset indexes it walks for the range, type and status filters are created with the
+-- schema. This pg_trgm GIN index lets a selective description search skip straight to
+-- the matching rows instead of filtering every row in the range. The expression must
+-- match TransactionSpecifications.descriptionContains exactly. Run once per database
+-- (and per shard). On a table converted by partition-transactions.sql remove
+-- CONCURRENTLY, which partitioned tables do not support; the build then blocks writes.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_search_description
+    ON transactions USING gin (LOWER(description) gin_trgm_ops);
@@ -0,0 +1,74 @@
+-- Converts the transactions table into a table partitioned by month on "timestamp".
+--
+-- Run once per database (and per shard) during a maintenance window, after the
+-- application has created the schema. The application then keeps partitions for the
+-- coming months in place and archives cold months (see TransactionPartitionService).
+--
+-- PostgreSQL requires the partition key in every primary key and unique constraint,
+-- so the primary key becomes (id, timestamp) and reference numbers are unique per
+-- (reference_number, timestamp). Reference numbers embed their creation time, so
+-- this does not weaken them in practice.
+
+BEGIN;
+
+LOCK TABLE transactions IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+-- Identity columns are not supported on partitioned tables before PostgreSQL 17;
+-- a sequence continues where the old identity stopped (including shard id blocks).
+CREATE SEQUENCE transactions_id_seq;
+SELECT setval('transactions_id_seq',
+              nextval(pg_get_serial_sequence('transactions_unpartitioned', 'id')), false);
+
+CREATE TABLE transactions (
+    LIKE transactions_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS
+) PARTITION BY RANGE (timestamp);
+
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_id_seq');
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+ALTER TABLE transactions ADD PRIMARY KEY (id, timestamp);
+ALTER TABLE transactions ADD CONSTRAINT uk_transactions_reference UNIQUE (reference_number, timestamp);
+
+-- The old table's copies of these were created with the schema; free their names until it is dropped
+ALTER INDEX IF EXISTS idx_transactions_source_timestamp RENAME TO idx_transactions_source_timestamp_old;
+ALTER INDEX IF EXISTS idx_transactions_target_timestamp RENAME TO idx_transactions_target_timestamp_old;
+
+-- Indexes on the parent are created on every partition, current and future
+CREATE INDEX idx_transactions_source_timestamp ON transactions (source_account_id, timestamp);
+CREATE INDEX idx_transactions_target_timestamp ON transactions (target_account_id, timestamp);
+CREATE INDEX idx_transactions_timestamp ON transactions (timestamp);
+CREATE INDEX idx_transactions_reference ON transactions (reference_number);
+
+-- One partition per month that already holds data, plus the current and next month
+DO $$
+DECLARE
+    month date;
+    last_month date;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(timestamp), now()))::date INTO month FROM transactions_unpartitioned;
+    last_month := (date_trunc('month', now()) + interval '1 month')::date;
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_p' || to_char(month, 'YYYY_MM'),
+                       month, (month + interval '1 month')::date);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Catches rows outside the prepared months instead of failing the insert
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+INSERT INTO transactions SELECT * FROM transactions_unpartitioned;
+
+-- LIKE copies only check and not-null constraints; the account references are added back once the rows are in
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_source_account
+    FOREIGN KEY (source_account_id) REFERENCES accounts (id);
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_target_account
+    FOREIGN KEY (target_account_id) REFERENCES accounts (id);
+
+DROP TABLE transactions_unpartitioned;
+
+COMMIT;
+
+ANALYZE transactions;
@@ -0,0 +1,124 @@
+package com.example.banking_system.controller;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.TransactionRepository;
+import com.example.banking_system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DashboardControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void unchangedPollWithTheTagIsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/dashboard/admin-stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).startsWith("W/\"");
+
+        mockMvc.perform(get("/api/dashboard/admin-stats").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void tagOfAnotherRepresentationIsServedInFull() throws Exception {
+        String eTag = mockMvc.perform(get("/api/dashboard/admin-stats"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/dashboard/admin-stats")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .header(HttpHeaders.ACCEPT, "application/cbor"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void browserOnTheFrontendOriginMaySendAndReadTheTag() throws Exception {
+        mockMvc.perform(options("/api/dashboard/admin-stats")
+                        .header(HttpHeaders.ORIGIN, "http://localhost:5173")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "authorization, if-none-match"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, "authorization, if-none-match"));
+
+        mockMvc.perform(get("/api/dashboard/admin-stats").header(HttpHeaders.ORIGIN, "http://localhost:5173"))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "ETag"));
+    }
+
+    @Test
+    @WithMockUser(username = "sysadmin", roles = "ADMIN")
+    void postingCommittedLateStillChangesMyAccountsTag() throws Exception {
+        Account account = new Account();
+        account.setAccountNumber("DASH00000001");
+        account.setAccountType(Account.AccountType.CHECKING);
+        account.setBalance(new BigDecimal("100.00"));
+        account.setUser(userRepository.findByUsername("sysadmin").orElseThrow());
+        account = accountRepository.save(account);
+        transactionRepository.save(deposit(account));
+
+        String eTag = mockMvc.perform(get("/api/accounts/my-accounts"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/accounts/my-accounts").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // Stamped before the newest posting but committed after it, like a slow concurrent writer
+        Transaction late = transactionRepository.save(deposit(account));
+        jdbcTemplate.update("UPDATE transactions SET timestamp = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(1), late.getId());
+
+        mockMvc.perform(get("/api/accounts/my-accounts").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    private static Transaction deposit(Account account) {
+        Transaction deposit = new Transaction();
+        deposit.setAmount(new BigDecimal("10.00"));
+        deposit.setType(Transaction.TransactionType.DEPOSIT);
+        deposit.setReferenceNumber(Transaction.newReferenceNumber());
+        deposit.setTargetAccount(account);
+        deposit.setStatus(Transaction.TransactionStatus.COMPLETED);
+        return deposit;
+    }
+}
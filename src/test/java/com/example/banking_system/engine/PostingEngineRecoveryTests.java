@@ -0,0 +1,132 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.PendingCreditRepository;
+import com.example.banking_system.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Restarts the engine over a journal of five 1.00 deposits to account 7 and
+ * checks which balances it comes back with. The snapshots deliberately
+ * disagree with the journal, so the result shows where replay started.
+ */
+class PostingEngineRecoveryTests {
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private PostingEngine engine;
+
+    @AfterEach
+    void stopEngine() throws IOException {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void replaysOnlyTheJournalAfterTheSnapshot() throws IOException {
+        writeJournal(5);
+        new SnapshotStore(directory, 2).write(SnapshotStoreTests.snapshot(3, 10_000));
+
+        engine = startEngine();
+
+        assertThat(engine.balanceOf(account(7))).isEqualByComparingTo("102.00");
+        assertThat(engine.balanceOf(account(8))).isEqualByComparingTo("-0.05");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void damagedSnapshotReplaysFromThePreviousOne() throws IOException {
+        writeJournal(5);
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        store.write(SnapshotStoreTests.snapshot(1, 50_000));
+        store.write(SnapshotStoreTests.snapshot(3, 10_000));
+        Path newest = directory.resolve("snapshot-00000000000000000003.snap");
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(newest, bytes);
+
+        engine = startEngine();
+
+        assertThat(engine.balanceOf(account(7))).isEqualByComparingTo("504.00");
+    }
+
+    @Test
+    void cleanStopSnapshotsSoTheNextStartReplaysNothing() throws IOException {
+        writeJournal(5);
+        new SnapshotStore(directory, 2).write(SnapshotStoreTests.snapshot(3, 10_000));
+        engine = startEngine();
+        engine.deposit(account(7), new BigDecimal("0.50"), "after restart");
+        engine.stop();
+
+        BalanceSnapshot written = new SnapshotStore(directory, 2).loadLatest();
+        assertThat(written.sequence()).isEqualTo(6);
+        assertThat(written.balances().get(7)).isEqualTo(10_250);
+
+        engine = startEngine();
+
+        assertThat(engine.balanceOf(account(7))).isEqualByComparingTo("102.50");
+    }
+
+    private void writeJournal(long records) throws IOException {
+        try (PostingJournal journal = new PostingJournal(directory, 64 * 1024, false)) {
+            journal.recover(0, record -> { });
+            for (long sequence = 1; sequence <= records; sequence++) {
+                journal.append(PostingJournalTests.record(sequence));
+            }
+            journal.flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PostingEngine startEngine() throws IOException {
+        ShardRouter shardRouter = mock(ShardRouter.class);
+        when(shardRouter.getShardCount()).thenReturn(1);
+        when(shardRouter.onShard(anyInt(), anyBoolean(), any()))
+                .thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(2)).get());
+        JournalReplicator replicator = mock(JournalReplicator.class);
+        when(replicator.replicatedSequence()).thenReturn(5L);
+        when(replicator.lastReplicated()).thenReturn(5L);
+
+        PostingEngine started = new PostingEngine(mock(AccountRepository.class), mock(PendingCreditRepository.class),
+                jdbcTemplate, shardRouter, replicator, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(started, "ringSize", 64);
+        ReflectionTestUtils.setField(started, "waitStrategy", "blocking");
+        ReflectionTestUtils.setField(started, "journalDirectory", directory.toString());
+        ReflectionTestUtils.setField(started, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(started, "fsync", false);
+        ReflectionTestUtils.setField(started, "snapshotsRetained", 2);
+        ReflectionTestUtils.setField(started, "shutdownTimeoutMs", 5000L);
+        started.start();
+        return started;
+    }
+
+    private static Account account(long id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setBalance(BigDecimal.ZERO);
+        return account;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.banking_system.engine;
+
+import com.example.banking_system.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostingJournalTests {
+
+    // Room for four of the records below, so six of them span two segments
+    private static final int SMALL_SEGMENT_BYTES = 256;
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverPassesOnlyRecordsAfterTheGivenSequence() throws IOException {
+        write(SEGMENT_BYTES, 1, 2, 3, 4, 5);
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        long last = recover(SEGMENT_BYTES, 2, replayed);
+
+        assertThat(last).isEqualTo(5);
+        assertThat(replayed).extracting(JournalRecord::sequence).containsExactly(3L, 4L, 5L);
+        assertThat(replayed.get(0)).isEqualTo(record(3));
+    }
+
+    @Test
+    void recoverSkipsSegmentsBeforeTheGivenSequence() throws IOException {
+        write(SMALL_SEGMENT_BYTES, 1, 2, 3, 4, 5, 6);
+        assertThat(segments()).hasSize(2);
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        assertThat(recover(SMALL_SEGMENT_BYTES, 4, replayed)).isEqualTo(6);
+        assertThat(replayed).extracting(JournalRecord::sequence).containsExactly(5L, 6L);
+    }
+
+    @Test
+    void tornTailIsTruncatedAndOverwritten() throws IOException {
+        write(SEGMENT_BYTES, 1, 2, 3);
+        Path segment = segments().get(0);
+        corruptPayload(segment, 2);
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_BYTES, false)) {
+            assertThat(journal.recover(0, replayed::add)).isEqualTo(2);
+            // The torn record was zeroed, so the next append takes its place
+            journal.append(record(3));
+            journal.flush();
+        }
+        assertThat(replayed).extracting(JournalRecord::sequence).containsExactly(1L, 2L);
+
+        replayed.clear();
+        assertThat(recover(SEGMENT_BYTES, 0, replayed)).isEqualTo(3);
+        assertThat(replayed).extracting(JournalRecord::sequence).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void lengthPastTheSegmentEndIsATornTail() throws IOException {
+        write(SEGMENT_BYTES, 1, 2);
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer.wrap(bytes).putInt(offsetOf(bytes, 2), SEGMENT_BYTES);
+        Files.write(segment, bytes);
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        assertThat(recover(SEGMENT_BYTES, 0, replayed)).isEqualTo(2);
+        assertThat(replayed).extracting(JournalRecord::sequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void checksumMismatchBeforeTheLastSegmentIsRejected() throws IOException {
+        write(SMALL_SEGMENT_BYTES, 1, 2, 3, 4, 5, 6);
+        corruptPayload(segments().get(0), 1);
+
+        assertThatThrownBy(() -> recover(SMALL_SEGMENT_BYTES, 0, new ArrayList<>()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("corrupt");
+    }
+
+    @Test
+    void sequenceGapIsRejected() throws IOException {
+        write(SEGMENT_BYTES, 1, 2, 4);
+
+        assertThatThrownBy(() -> recover(SEGMENT_BYTES, 0, new ArrayList<>()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("jumps from 2 to 4");
+    }
+
+    @Test
+    void emptyDirectoryOpensAFirstSegment() throws IOException {
+        assertThat(recover(SEGMENT_BYTES, 7, new ArrayList<>())).isEqualTo(7);
+        assertThat(segments()).singleElement()
+                .satisfies(segment -> assertThat(segment.getFileName().toString()).contains("00000000000000000008"));
+    }
+
+    static JournalRecord record(long sequence) {
+        return new JournalRecord(sequence, Transaction.TransactionType.DEPOSIT, 0, 7, 100, 1_700_000_000_000L + sequence,
+                "REF" + sequence, "d");
+    }
+
+    private void write(int segmentBytes, long... sequences) throws IOException {
+        try (PostingJournal journal = new PostingJournal(directory, segmentBytes, false)) {
+            journal.recover(0, record -> { });
+            for (long sequence : sequences) {
+                journal.append(record(sequence));
+            }
+            journal.flush();
+        }
+    }
+
+    private long recover(int segmentBytes, long afterSequence, List<JournalRecord> replayed) throws IOException {
+        try (PostingJournal journal = new PostingJournal(directory, segmentBytes, false)) {
+            return journal.recover(afterSequence, replayed::add);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    // Flips the last payload byte of the record at the given index of the segment
+    private static void corruptPayload(Path segment, int index) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        int offset = offsetOf(bytes, index);
+        int length = ByteBuffer.wrap(bytes).getInt(offset);
+        bytes[offset + 8 + length - 1] ^= 0x55;
+        Files.write(segment, bytes);
+    }
+
+    private static int offsetOf(byte[] bytes, int index) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += 8 + buffer.getInt(offset);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.banking_system.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotStoreTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsTheNewestSnapshot() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        store.write(snapshot(10, 1_000));
+        store.write(snapshot(20, 2_000));
+
+        BalanceSnapshot loaded = store.loadLatest();
+
+        assertThat(loaded.sequence()).isEqualTo(20);
+        assertThat(loaded.balances().size()).isEqualTo(2);
+        assertThat(loaded.balances().get(7)).isEqualTo(2_000);
+        assertThat(loaded.balances().get(8)).isEqualTo(-5);
+    }
+
+    @Test
+    void damagedSnapshotFallsBackToThePreviousOne() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        store.write(snapshot(10, 1_000));
+        store.write(snapshot(20, 2_000));
+        Path newest = snapshotFiles()[1];
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(newest, bytes);
+
+        BalanceSnapshot loaded = store.loadLatest();
+
+        assertThat(loaded.sequence()).isEqualTo(10);
+        assertThat(loaded.balances().get(7)).isEqualTo(1_000);
+    }
+
+    @Test
+    void truncatedOrRenamedSnapshotIsSkipped() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 3);
+        store.write(snapshot(10, 1_000));
+        store.write(snapshot(20, 2_000));
+        store.write(snapshot(30, 3_000));
+        Path[] files = snapshotFiles();
+        byte[] newest = Files.readAllBytes(files[2]);
+        Files.write(files[2], Arrays.copyOf(newest, newest.length - 8));
+        // A file whose name disagrees with its header is not trusted either
+        Files.move(files[1], files[1].resolveSibling("snapshot-00000000000000000025.snap"));
+        Files.delete(files[0]);
+
+        assertThat(store.loadLatest()).isNull();
+    }
+
+    @Test
+    void keepsOnlyTheRetainedSnapshots() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        store.write(snapshot(10, 1_000));
+        store.write(snapshot(20, 2_000));
+
+        long oldestRetained = store.write(snapshot(30, 3_000));
+
+        assertThat(oldestRetained).isEqualTo(20);
+        assertThat(snapshotFiles()).extracting(file -> file.getFileName().toString())
+                .containsExactly("snapshot-00000000000000000020.snap", "snapshot-00000000000000000030.snap");
+    }
+
+    @Test
+    void leftoverTemporaryFileIsDeleted() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        store.write(snapshot(10, 1_000));
+        Path temporary = directory.resolve("snapshot-00000000000000000020.snap.tmp");
+        Files.write(temporary, new byte[]{1, 2, 3});
+
+        assertThat(store.loadLatest().sequence()).isEqualTo(10);
+        assertThat(temporary).doesNotExist();
+    }
+
+    @Test
+    void emptyDirectoryHasNoSnapshot() throws IOException {
+        assertThat(new SnapshotStore(directory, 2).loadLatest()).isNull();
+    }
+
+    static BalanceSnapshot snapshot(long sequence, long cents) {
+        BalanceMap balances = new BalanceMap(4);
+        balances.put(7, cents);
+        balances.put(8, -5);
+        return new BalanceSnapshot(sequence, balances);
+    }
+
+    private Path[] snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".snap")).sorted().toArray(Path[]::new);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.banking_system.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionTests {
+
+    @Test
+    void referenceNumbersDoNotRepeatAcrossThreads() throws Exception {
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        try (ExecutorService threads = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                writers.add(threads.submit(() -> {
+                    // Far more than one millisecond's worth, so the sequence has to borrow ahead
+                    for (int n = 0; n < 25_000; n++) {
+                        references.add(Transaction.newReferenceNumber());
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        }
+
+        assertThat(references).hasSize(100_000);
+    }
+
+    @Test
+    void referenceNumberCarriesItsNodeAndCreationTime() {
+        Transaction.setReferenceNode(42);
+        String reference = Transaction.newReferenceNumber();
+
+        assertThat(reference).hasSize(23).startsWith("TXN");
+        assertThat(reference.substring(16, 19)).isEqualTo("042");
+        assertThat(Transaction.referenceTimestamp(reference)).get()
+                .satisfies(created -> assertThat(Duration.between(created, LocalDateTime.now()).abs())
+                        .isLessThan(Duration.ofMinutes(1)));
+        // References in the older format still narrow lookups
+        assertThat(Transaction.referenceTimestamp("TXN1700000000000123")).isPresent();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.banking_system.service;
+
+import com.example.banking_system.dto.TransactionResponse;
+import com.example.banking_system.exception.BankingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class TransactionSearchServiceTests {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2001, 3, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    @Autowired
+    private TransactionSearchService searchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertTransactions() {
+        // Three rows share a timestamp, so a page boundary falls between rows only the id orders
+        insert("KEYSET-1", FROM.plusHours(1));
+        insert("KEYSET-2", FROM.plusHours(2));
+        insert("KEYSET-3", FROM.plusHours(2));
+        insert("KEYSET-4", FROM.plusHours(2));
+        insert("KEYSET-5", FROM.plusHours(3));
+    }
+
+    @Test
+    void cursorPagesVisitEveryRowOnceNewestFirst() {
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionSearchService.SearchPage page = searchService.search(criteria(cursor, 2));
+            page.content().stream().map(TransactionResponse::getReferenceNumber).forEach(seen::add);
+            pageSizes.add(page.content().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactly("KEYSET-5", "KEYSET-4", "KEYSET-3", "KEYSET-2", "KEYSET-1");
+        assertThat(pageSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        TransactionSearchService.SearchPage page = searchService.search(criteria(null, 5));
+
+        assertThat(page.content()).hasSize(5);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "MjAwMS0wMy0wMXwx")) {
+            assertThatThrownBy(() -> searchService.search(criteria(cursor, 2)))
+                    .isInstanceOfSatisfying(BankingException.class,
+                            e -> assertThat(e.getErrorCode()).isEqualTo("INVALID_CURSOR"));
+        }
+    }
+
+    private static TransactionSearchService.Criteria criteria(String cursor, int size) {
+        return new TransactionSearchService.Criteria(FROM, TO, null, null, null, null, null, cursor, size);
+    }
+
+    private void insert(String referenceNumber, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO transactions (amount, type, description, reference_number, timestamp, status) "
+                        + "VALUES (?, 'DEPOSIT', 'keyset paging', ?, ?, 'COMPLETED')",
+                BigDecimal.TEN, referenceNumber, Timestamp.valueOf(timestamp));
+    }
+}
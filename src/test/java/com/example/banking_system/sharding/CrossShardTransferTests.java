@@ -0,0 +1,197 @@
+package com.example.banking_system.sharding;
+
+import com.example.banking_system.entity.Account;
+import com.example.banking_system.entity.Transaction;
+import com.example.banking_system.entity.User;
+import com.example.banking_system.exception.BankingException;
+import com.example.banking_system.repository.AccountRepository;
+import com.example.banking_system.repository.TransactionRepository;
+import com.example.banking_system.repository.UserRepository;
+import com.example.banking_system.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the transfer saga between two local H2 databases, shard 0 and shard 1.
+ * Each test opens a fresh account on either shard, holding 100.00 at the source.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "banking.sharding.enabled=true",
+        "banking.sharding.nodes[0].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "banking.sharding.nodes[0].username=sa",
+        "banking.sharding.nodes[0].password=",
+        "banking.sharding.nodes[0].driver-class-name=org.h2.Driver",
+        // Recovery is run by the tests themselves, and takes any leg still pending
+        "banking.sharding.transfer-recovery-after-ms=0",
+        "banking.sharding.transfer-recovery-interval-ms=3600000"
+})
+class CrossShardTransferTests {
+
+    private static final AtomicInteger NEXT_ACCOUNT = new AtomicInteger();
+
+    @Autowired
+    private CrossShardTransferCoordinator coordinator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    private String source;
+    private String target;
+
+    @BeforeEach
+    void openAccounts() {
+        source = openAccount(0, new BigDecimal("100.00"));
+        target = openAccount(1, BigDecimal.ZERO);
+    }
+
+    @Test
+    void transferDebitsOneShardAndCreditsTheOther() {
+        CrossShardTransferCoordinator.Result result = coordinator.transfer(source, target, new BigDecimal("30.00"), "rent");
+
+        String reference = result.getTransaction().getReferenceNumber();
+        assertThat(balance(source)).isEqualByComparingTo("70.00");
+        assertThat(balance(target)).isEqualByComparingTo("30.00");
+        assertThat(leg(0, reference)).get().extracting(Transaction::getStatus).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        assertThat(leg(1, reference)).get().extracting(Transaction::getStatus).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        // Each shard hands out ids from its own block
+        assertThat(shardRouter.shardForId(result.getTargetAccount().getId())).isEqualTo(1);
+    }
+
+    @Test
+    void transactionListingCoversEveryShard() {
+        String reference = coordinator.transfer(source, target, new BigDecimal("30.00"), "rent")
+                .getTransaction().getReferenceNumber();
+
+        assertThat(transactionService.getAllTransactions(PageRequest.of(0, 1000)).getContent())
+                .filteredOn(transaction -> reference.equals(transaction.getReferenceNumber()))
+                .extracting(transaction -> shardRouter.shardForId(transaction.getId()))
+                .containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void failedCreditIsCompensated() {
+        // A stripe count without stripe rows makes the credit on the target shard fail
+        shardRouter.onShard(1, false, () -> {
+            Account account = accountRepository.findByAccountNumber(target).orElseThrow();
+            account.setStripeCount(2);
+            return accountRepository.save(account);
+        });
+
+        assertThatThrownBy(() -> coordinator.transfer(source, target, new BigDecimal("30.00"), "rent"))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("TRANSACTION_FAILED"));
+
+        assertThat(balance(source)).isEqualByComparingTo("100.00");
+        Transaction outgoing = shardRouter.onShard(0, true, () -> transactionRepository
+                .findPendingOutgoingLegs(Transaction.TransactionStatus.FAILED, LocalDateTime.now().plusDays(1))
+                .stream()
+                .filter(leg -> leg.getCounterpartyAccountNumber().equals(target))
+                .findFirst()
+                .orElseThrow());
+        assertThat(leg(1, outgoing.getReferenceNumber())).isEmpty();
+    }
+
+    @Test
+    void strandedLegIsCompletedWhenTheCreditLanded() {
+        String reference = strandDebit(new BigDecimal("30.00"));
+        shardRouter.onShard(1, false, () -> {
+            Account account = accountRepository.findByAccountNumber(target).orElseThrow();
+            account.setBalance(account.getBalance().add(new BigDecimal("30.00")));
+            accountRepository.save(account);
+            return transactionRepository.save(leg(reference, null, account, source, Transaction.TransactionStatus.COMPLETED));
+        });
+
+        coordinator.recoverPendingTransfers();
+
+        assertThat(leg(0, reference)).get().extracting(Transaction::getStatus).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        assertThat(balance(source)).isEqualByComparingTo("70.00");
+        assertThat(balance(target)).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void strandedLegIsCompensatedWhenTheCreditNeverLanded() {
+        String reference = strandDebit(new BigDecimal("30.00"));
+
+        coordinator.recoverPendingTransfers();
+
+        assertThat(leg(0, reference)).get().extracting(Transaction::getStatus).isEqualTo(Transaction.TransactionStatus.FAILED);
+        assertThat(balance(source)).isEqualByComparingTo("100.00");
+        assertThat(balance(target)).isEqualByComparingTo("0.00");
+    }
+
+    // What a crash after the saga's first step leaves behind: the debit and a PENDING outgoing leg
+    private String strandDebit(BigDecimal amount) {
+        String reference = Transaction.newReferenceNumber();
+        shardRouter.onShard(0, false, () -> {
+            Account account = accountRepository.findByAccountNumber(source).orElseThrow();
+            account.setBalance(account.getBalance().subtract(amount));
+            accountRepository.save(account);
+            return transactionRepository.save(leg(reference, account, null, target, Transaction.TransactionStatus.PENDING));
+        });
+        return reference;
+    }
+
+    private static Transaction leg(String reference, Account sourceAccount, Account targetAccount,
+                                   String counterparty, Transaction.TransactionStatus status) {
+        Transaction leg = new Transaction();
+        leg.setAmount(new BigDecimal("30.00"));
+        leg.setType(Transaction.TransactionType.TRANSFER);
+        leg.setReferenceNumber(reference);
+        leg.setSourceAccount(sourceAccount);
+        leg.setTargetAccount(targetAccount);
+        leg.setCounterpartyAccountNumber(counterparty);
+        leg.setStatus(status);
+        return leg;
+    }
+
+    private String openAccount(int shard, BigDecimal balance) {
+        String accountNumber;
+        do {
+            accountNumber = String.format("SHARD%08d", NEXT_ACCOUNT.incrementAndGet());
+        } while (shardRouter.shardForAccountNumber(accountNumber) != shard);
+        String number = accountNumber;
+        shardRouter.onShard(shard, false, () -> {
+            User owner = userRepository.findByUsername("sysadmin").orElseThrow();
+            Account account = new Account();
+            account.setAccountNumber(number);
+            account.setAccountType(Account.AccountType.CHECKING);
+            account.setBalance(balance);
+            account.setUser(owner);
+            return accountRepository.save(account);
+        });
+        return number;
+    }
+
+    private BigDecimal balance(String accountNumber) {
+        return shardRouter.onShard(shardRouter.shardForAccountNumber(accountNumber), true,
+                () -> accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance());
+    }
+
+    private Optional<Transaction> leg(int shard, String reference) {
+        return shardRouter.onShard(shard, true, () -> transactionRepository.findByReferenceNumberPruned(reference));
+    }
+}